@@ -0,0 +1,42 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.model.AdjacencyIndex;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.CompactDotGraph;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.DotStreamParser;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.IntList;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.StringPool;
+import org.junit.Test;
+
+public class AdjacencyIndexTests {
+
+	static String chain = "digraph G { C [label=\"c\"]; A -> B [name=\"ab\"]; C -> B [name=\"cb\"]; "
+			+ "C -> D [name=\"cd\"]; D -> E [name=\"de\"]; E -> F [name=\"ef\"]; }";
+
+	@Test
+	public void neighbourhoodByDistance() throws Exception {
+		CompactDotGraph graph = new DotStreamParser(new StringPool()).parse(new StringReader(chain));
+		AdjacencyIndex index = new AdjacencyIndex(graph);
+		IntList seeds = new IntList();
+		seeds.add(graph.findNode("C"));
+
+		// edges are followed in both directions
+		assertTrue(names(graph, index.neighbourhood(seeds, 1, 10)).equals("[B, D]"));
+		assertTrue(names(graph, index.neighbourhood(seeds, 2, 10)).equals("[B, D, A, E]"));
+		assertTrue(names(graph, index.neighbourhood(seeds, 2, 3)).equals("[B, D, A]"));
+		assertTrue(index.neighbourhood(seeds, 0, 10).length == 0);
+		assertTrue(index.neighbourhood(seeds, 5, 0).length == 0);
+	}
+
+	private static String names(CompactDotGraph graph, int[] nodes) {
+		String[] names = new String[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			names[i] = graph.getPool().get(graph.getNodeName(nodes[i]));
+		}
+		return Arrays.toString(names);
+	}
+}
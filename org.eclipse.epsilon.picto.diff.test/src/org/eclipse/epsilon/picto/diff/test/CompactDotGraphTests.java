@@ -0,0 +1,83 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.model.CompactDotGraph;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.CompactDotGraphBuilder;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.StringPool;
+import org.junit.Before;
+import org.junit.Test;
+
+import guru.nidi.graphviz.model.MutableGraph;
+import guru.nidi.graphviz.parse.Parser;
+
+public class CompactDotGraphTests {
+
+	protected StringPool pool;
+
+	@Before
+	public void createPool() {
+		pool = new StringPool();
+	}
+
+	@Test
+	public void graphsShareNamesAndAttributes() throws Exception {
+		MutableGraph left = new Parser().read(
+				"digraph G { A [label=\"a\"]; B [label=\"b\"]; A -> B [name=\"e1\", label=\"x\"]; }");
+		MutableGraph right = new Parser().read(
+				"digraph G { B [label=\"b\"]; A [label=\"a2\"]; A -> B [name=\"e1\", label=\"x\"]; }");
+		CompactDotGraph source = CompactDotGraph.fromGraph(left, pool);
+		CompactDotGraph target = CompactDotGraph.fromGraph(right, pool);
+
+		int sourceA = source.findNode("A");
+		int targetA = target.findNode(source.getNodeName(sourceA));
+		assertTrue(target.getNode(targetA).name().value().equals("A"));
+
+		int labelKey = pool.find("label");
+		assertTrue(source.findAttribute(source.findNode("B"), labelKey) ==
+				target.findAttribute(target.findNode("B"), labelKey));
+		assertTrue(source.findAttribute(sourceA, labelKey) !=
+				target.findAttribute(targetA, labelKey));
+
+		int sourceEdge = source.findEdge(sourceA, pool.find("e1"));
+		int targetEdge = target.findEdge(targetA, pool.find("e1"));
+		assertTrue(source.getEdgeLabel(sourceEdge) == target.getEdgeLabel(targetEdge));
+		assertTrue(source.getNodeName(source.getEdgeTarget(sourceEdge)) == pool.find("B"));
+		assertTrue(source.getEdgeTargetKind(sourceEdge) == target.getEdgeTargetKind(targetEdge));
+		assertTrue(source.getLink(sourceEdge).attrs().get("name").equals("e1"));
+		assertTrue(source.findNode("C") == CompactDotGraph.NONE);
+	}
+
+	@Test
+	public void builderGroupsEventsByOwner() {
+		CompactDotGraphBuilder builder = new CompactDotGraphBuilder(pool);
+		int a = builder.node("A");
+		int b = builder.node("B");
+		int first = builder.edge(b, a, CompactDotGraph.TARGET_NODE);
+		builder.nodeAttribute(b, "color", "red");
+		int second = builder.edge(a, b, CompactDotGraph.TARGET_NODE);
+		builder.edgeAttribute(second, "name", "e2");
+		int third = builder.edge(b, b, CompactDotGraph.TARGET_NODE);
+		builder.edgeAttribute(third, "name", "e3");
+		builder.edgeAttribute(first, "name", "e1");
+		builder.nodeAttribute(a, "shape", "box");
+		builder.nodeAttribute(b, "color", "blue");
+		assertTrue(builder.node("A") == a);
+		CompactDotGraph graph = builder.build();
+
+		assertTrue(graph.nodeCount() == 2 && graph.edgeCount() == 3);
+		// repeated keys keep the last value
+		assertTrue(graph.attributesEnd(b) - graph.attributesStart(b) == 1);
+		assertTrue(graph.findAttribute(b, pool.find("color")) == pool.find("blue"));
+		assertTrue(graph.findAttribute(a, pool.find("shape")) == pool.find("box"));
+
+		// edges of each node keep their order of addition
+		assertTrue(graph.edgesEnd(a) - graph.edgesStart(a) == 1);
+		assertTrue(graph.getEdgeName(graph.edgesStart(a)) == pool.find("e2"));
+		assertTrue(graph.getEdgeName(graph.edgesStart(b)) == pool.find("e1"));
+		assertTrue(graph.getEdgeName(graph.edgesStart(b) + 1) == pool.find("e3"));
+		assertTrue(graph.findEdge(b, pool.find("e3")) == graph.edgesStart(b) + 1);
+		assertTrue(graph.findEdge(a, pool.find("e3")) == CompactDotGraph.NONE);
+		assertTrue(graph.getEdgeLabel(graph.edgesStart(a)) == CompactDotGraph.NONE);
+	}
+}
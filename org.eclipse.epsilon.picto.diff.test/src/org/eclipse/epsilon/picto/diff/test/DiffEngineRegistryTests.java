@@ -0,0 +1,43 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.epsilon.picto.diff.engines.DiffEngineRegistry;
+import org.eclipse.epsilon.picto.diff.engines.csv.CsvDiffEngine;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngine;
+import org.eclipse.epsilon.picto.diff.engines.html.HtmlDiffEngine;
+import org.eclipse.epsilon.picto.diff.engines.sidebyside.SideBySideDiffEngine;
+import org.junit.Test;
+
+public class DiffEngineRegistryTests {
+
+	protected DiffEngineRegistry registry = DiffEngineRegistry.getDefault();
+
+	@Test
+	public void engineByFormat() {
+		assertTrue(registry.getEngine("csv") instanceof CsvDiffEngine);
+		assertTrue(registry.getEngine("html") instanceof HtmlDiffEngine);
+		assertTrue(registry.getEngine("graphviz-dot") instanceof DotDiffEngine);
+		assertTrue(registry.getEngine("text") instanceof SideBySideDiffEngine);
+	}
+
+	@Test
+	public void statefulEnginesNotReused() {
+		assertTrue(registry.getEngine("graphviz-dot") != registry.getEngine("graphviz-dot"));
+		assertTrue(registry.getEngine("html") != registry.getEngine("html"));
+	}
+
+	@Test
+	public void statelessEnginesReused() {
+		assertTrue(registry.getEngine("text") == registry.getEngine("markdown"));
+	}
+
+	@Test
+	public void preferredEngine() {
+		assertTrue(registry.getEngine("html", registry.getNamedFactory("sidebyside"))
+				instanceof SideBySideDiffEngine);
+		// the dot engine does not support html
+		assertTrue(registry.getEngine("html", registry.getNamedFactory("DOT"))
+				instanceof HtmlDiffEngine);
+	}
+}
@@ -0,0 +1,134 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.eclipse.epsilon.picto.StaticContentPromise;
+import org.eclipse.epsilon.picto.ViewTree;
+import org.eclipse.epsilon.picto.diff.DiffResultCache;
+import org.eclipse.epsilon.picto.diff.ViewTreeMerger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DiffResultCacheTests {
+
+	protected File directory;
+
+	@Before
+	public void createDirectory() throws Exception {
+		directory = Files.createTempDirectory("pictodiff-cache").toFile();
+		directory.deleteOnExit();
+	}
+
+	protected ViewTree createTree(String content) {
+		ViewTree tree = new ViewTree();
+		ViewTree child = new ViewTree("A");
+		child.setPromise(new StaticContentPromise(content));
+		child.setFormat("text");
+		tree.getChildren().add(child);
+		return tree;
+	}
+
+	protected ViewTree merge(DiffResultCache cache, String oldContent, String newContent)
+			throws Exception {
+
+		ViewTreeMerger merger = new ViewTreeMerger("dummy");
+		merger.setResultCache(cache);
+		return merger.merge(createTree(oldContent), createTree(newContent)).getChildren().get(0);
+	}
+
+	@Test
+	public void evaluatedResultsReused() throws Exception {
+		DiffResultCache firstCache = new DiffResultCache(directory);
+		ViewTree firstDiff = merge(firstCache, "a", "a2");
+		assertTrue(firstCache.getMisses() == 1);
+		String content = firstDiff.getContent().getText();
+
+		// a different instance sharing the directory, e.g. another session
+		DiffResultCache secondCache = new DiffResultCache(directory);
+		ViewTree secondDiff = merge(secondCache, "a", "a2");
+
+		assertTrue(secondCache.getHits() == 1);
+		assertTrue(secondDiff.getFormat().equals(firstDiff.getFormat()));
+		assertTrue(secondDiff.getContent().getText().equals(content));
+		assertTrue(secondDiff.getIcon().equals("pdiff-changed"));
+	}
+
+	@Test
+	public void differentContentsMiss() throws Exception {
+		DiffResultCache cache = new DiffResultCache(directory);
+		merge(cache, "a", "a2").getContent();
+		merge(cache, "a", "a3").getContent();
+
+		assertTrue(cache.getHits() == 0);
+		assertTrue(cache.getMisses() == 2);
+	}
+
+	@Test
+	public void resultsStoredOnce() throws Exception {
+		int[] stores = {0};
+		DiffResultCache cache = new DiffResultCache(directory) {
+			@Override
+			public void store(String key, String format, String content) {
+				stores[0]++;
+				super.store(key, format, content);
+			}
+		};
+		ViewTree diff = merge(cache, "a", "a2");
+		String content = diff.getContent().getText();
+		// shown again
+		assertTrue(diff.getPromise().getContent().equals(content));
+		assertTrue(stores[0] == 1);
+	}
+
+	@Test
+	public void sharedDirectoryBounded() throws Exception {
+		DiffResultCache first = new DiffResultCache(directory, 30);
+		DiffResultCache second = new DiffResultCache(directory, 30);
+		first.store("first", "text", "0123456789");
+		new File(directory, "first.diff").setLastModified(System.currentTimeMillis() - 20000);
+		second.store("second", "text", "0123456789");
+		new File(directory, "second.diff").setLastModified(System.currentTimeMillis() - 10000);
+		// counts the entry stored by the other instance
+		first.store("third", "text", "0123456789");
+
+		assertTrue(!new File(directory, "first.diff").exists());
+		assertTrue(new File(directory, "second.diff").exists());
+		assertTrue(new File(directory, "third.diff").exists());
+		assertTrue(first.getSize() == 30);
+	}
+
+	@Test
+	public void leastRecentlyUsedEvicted() throws Exception {
+		DiffResultCache cache = new DiffResultCache(directory, 30);
+		cache.store("first", "text", "0123456789");
+		new File(directory, "first.diff").setLastModified(System.currentTimeMillis() - 20000);
+		cache.store("second", "text", "0123456789");
+		new File(directory, "second.diff").setLastModified(System.currentTimeMillis() - 10000);
+		// reading refreshes the entry
+		assertTrue(cache.restore("first", new ViewTree()));
+		cache.store("third", "text", "0123456789");
+
+		assertTrue(new File(directory, "first.diff").exists());
+		assertTrue(!new File(directory, "second.diff").exists());
+		assertTrue(new File(directory, "third.diff").exists());
+		assertTrue(cache.getSize() == 30);
+	}
+
+	@Test
+	public void existingEntriesIndexed() throws Exception {
+		new DiffResultCache(directory).store("first", "text", "0123456789");
+		new File(directory, "first.diff").setLastModified(System.currentTimeMillis() - 10000);
+		new DiffResultCache(directory).store("second", "text", "0123456789");
+
+		// entries of earlier sessions are evicted by their modification time
+		DiffResultCache cache = new DiffResultCache(directory, 30);
+		cache.store("third", "text", "0123456789");
+
+		assertTrue(!new File(directory, "first.diff").exists());
+		assertTrue(new File(directory, "second.diff").exists());
+		assertTrue(cache.getSize() == 30);
+	}
+}
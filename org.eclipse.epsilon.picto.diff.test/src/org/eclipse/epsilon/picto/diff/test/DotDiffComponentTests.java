@@ -0,0 +1,95 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffComponent;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContentPromise;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContext;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngine;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderPool;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.CompactDotGraph;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.ComponentIndex;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.DotStreamParser;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.StringPool;
+import org.junit.Test;
+
+public class DotDiffComponentTests {
+
+	static String oldDot = "digraph G { A [label=\"a\"]; D [label=\"d\"]; "
+			+ "A -> B [name=\"ab\"]; C -> D [name=\"cd\"]; E -> F [name=\"ef\"]; }";
+	static String newDot = "digraph G { A [label=\"a2\"]; D [label=\"d2\"]; "
+			+ "A -> B [name=\"ab\"]; C -> D [name=\"cd\"]; E -> F [name=\"ef\"]; }";
+
+	@Test
+	public void componentsMatchedByName() throws Exception {
+		StringPool pool = new StringPool();
+		CompactDotGraph previous = new DotStreamParser(pool).parse(
+				new StringReader("digraph { A -> B; C -> D; E; }"));
+		CompactDotGraph current = new DotStreamParser(pool).parse(
+				new StringReader("digraph { A -> B; B -> C; E; }"));
+		ComponentIndex index = new ComponentIndex(previous, current);
+		int a = index.getComponent(pool.find("A"));
+		// joined by an edge of the current version only
+		assertTrue(index.getComponent(pool.find("D")) == a);
+		assertTrue(index.getComponent(pool.find("E")) != a);
+		assertTrue(index.getComponent(pool.find("X")) == StringPool.NONE);
+	}
+
+	@Test
+	public void changedComponentsPartitioned() throws Exception {
+		DotDiffEngine engine = new DotDiffEngine(new DotDiffContext(oldDot, newDot));
+		engine.setPartitioned(true);
+		engine.load();
+		engine.compare();
+
+		// the unchanged component (E, F) is left out
+		List<DotDiffComponent> components = engine.getComponents();
+		assertTrue(components.size() == 2);
+		assertTrue(components.get(0).contains("A") && !components.get(0).contains("C"));
+		assertTrue(components.get(1).contains("D") && !components.get(1).contains("E"));
+		for (DotDiffComponent component : components) {
+			assertTrue(component.getNewNodes() == 1 && component.getOldNodes() == 1);
+			assertTrue(component.getNewLayout().isDefault());
+		}
+		String second = components.get(1).getNewGraph().toString();
+		assertTrue(second.contains("cluster_D") && !second.contains("cluster_A"));
+	}
+
+	@Test
+	public void componentsRenderedIntoOnePage() throws Exception {
+		RecordingDotDiffEngine engine = new RecordingDotDiffEngine(oldDot, newDot);
+		engine.setRendering(graph -> "<svg>" + graph.graphs().iterator().next().name() + "</svg>");
+		engine.setPartitioned(true);
+		DotRenderPool pool = new DotRenderPool(2);
+		engine.setRenderPool(pool);
+		try {
+			String content = new DotDiffContentPromise(engine).getContent();
+			int first = content.indexOf("Current Version, component 1 of 2");
+			int second = content.indexOf("Current Version, component 2 of 2");
+			assertTrue(first >= 0 && second > first);
+			assertTrue(content.indexOf("<svg>A</svg>") > first);
+			assertTrue(content.indexOf("<svg>D</svg>") > second);
+			assertTrue(!content.contains("<svg>E</svg>"));
+			for (String thread : engine.getThreads()) {
+				assertTrue(thread.startsWith("picto-diff-render-"));
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void componentsRenderedInPlaceWithoutPool() throws Exception {
+		RecordingDotDiffEngine engine = new RecordingDotDiffEngine(oldDot, newDot);
+		engine.setPartitioned(true);
+		engine.setRenderPool(null);
+		new DotDiffContentPromise(engine).getContent();
+		assertTrue(engine.getRendered().size() == 4);
+		assertTrue(engine.getThreads().equals(Collections.singleton(Thread.currentThread().getName())));
+	}
+}
@@ -0,0 +1,82 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static guru.nidi.graphviz.model.Factory.mutNode;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContext;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngine;
+import org.junit.Test;
+
+import guru.nidi.graphviz.engine.Format;
+
+public class DotDiffContextRadiusTests {
+
+	static String chain = "digraph G { C [label=\"c\"]; A -> B [name=\"ab\"]; C -> B [name=\"cb\"]; "
+			+ "C -> D [name=\"cd\"]; D -> E [name=\"de\"]; E -> F [name=\"ef\"]; }";
+	static String changedChain = chain.replace("label=\"c\"", "label=\"c2\"");
+
+	@Test
+	public void contextRadiusBoundsTempGraphs() throws Exception {
+		assertTrue(getCurrentVersion(DotDiffEngine.IMPLICIT_CONTEXT, 10).equals("[C]"));
+		assertTrue(getCurrentVersion(0, 10).equals("[C]"));
+		assertTrue(getCurrentVersion(1, 10).equals("[C, B, D]"));
+		assertTrue(getCurrentVersion(3, 10).equals("[C, B, D, A, E, F]"));
+		assertTrue(getCurrentVersion(3, 2).equals("[C, B, D]"));
+	}
+
+	@Test
+	public void explicitRadiusLeavesOutImplicitContext() throws Exception {
+		String added = chain.replace("}", "G -> A [name=\"ga\"]; }");
+		DotDiffEngine engine = new DotDiffEngine(new DotDiffContext(chain, added));
+		engine.load();
+		engine.compare();
+		// the target of the added node link is shown in both versions
+		assertTrue(engine.findNodeInSourceTemp(mutNode("A")) != null);
+
+		engine = new DotDiffEngine(new DotDiffContext(chain, added));
+		engine.setContextRadius(0);
+		engine.load();
+		engine.compare();
+		assertTrue(engine.findNodeInSourceTemp(mutNode("A")) == null);
+		assertTrue(engine.findNodeInTargetTemp(mutNode("A")) != null);
+	}
+
+	private static String getCurrentVersion(int radius, int budget) throws Exception {
+		RecordingDotDiffEngine engine = new RecordingDotDiffEngine(chain, changedChain);
+		engine.setContextRadius(radius);
+		engine.setContextBudget(budget);
+		engine.load();
+		engine.compare();
+		engine.getNewVersion(Format.SVG);
+		String dot = engine.getRendered().get(0);
+		StringBuilder clusters = new StringBuilder();
+		for (String line : dot.split("\n")) {
+			if (line.startsWith("subgraph \"cluster_")) {
+				clusters.append(clusters.length() == 0 ? "" : ", ")
+						.append(line.substring(18, line.indexOf('"', 18)));
+			}
+		}
+		// the context links between the shown nodes are included
+		if (radius > 0 && budget > 1) {
+			assertTrue(dot.contains("\"C\" -> \"D\""));
+		}
+		return "[" + clusters + "]";
+	}
+
+	@Test
+	public void radiusBelowImplicitContextRejected() {
+		DotDiffEngine engine = new DotDiffEngine();
+		engine.configure(Collections.singletonMap(DotDiffEngine.CONTEXT_RADIUS_PARAMETER, "-1"));
+		assertTrue(engine.getContextRadius() == DotDiffEngine.IMPLICIT_CONTEXT);
+		try {
+			engine.setContextRadius(-2);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().equals("Context radius must be at least -1 (was -2)"));
+		}
+	}
+}
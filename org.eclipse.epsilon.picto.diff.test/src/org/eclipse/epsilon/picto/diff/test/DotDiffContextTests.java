@@ -0,0 +1,134 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContentPromise;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContext;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotLoadException;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.CompactDotGraph;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.DotParseException;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.StringPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DotDiffContextTests {
+
+	static String sourceDot =
+			"digraph G { node [shape=box]; A [label=\"a\"]; B; A -> B [name=\"e1\", label=\"x\"]; }";
+	static String targetDot =
+			"digraph G { C:f0 -> A [name=\"e2\"]; A [label=\"a2\"]; A -> B [name=\"e1\", label=\"x\"]; }";
+
+	protected ExecutorService executor;
+
+	@Before
+	public void createExecutor() {
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	public void shutdownExecutor() {
+		executor.shutdown();
+	}
+
+	@Test
+	public void concurrentLoadSharesPool() throws Exception {
+		DotDiffContext context = new DotDiffContext(sourceDot, targetDot);
+		context.setExecutor(executor);
+		assertTrue(context.loadGraphs());
+
+		StringPool pool = context.getPool();
+		CompactDotGraph source = context.getSourceGraph();
+		CompactDotGraph target = context.getTargetGraph();
+		assertTrue(source.getPool() == pool && target.getPool() == pool);
+
+		assertTrue(target.nodeCount() == 3);
+		assertTrue(target.getNodeName(target.findNode("A")) == source.getNodeName(source.findNode("A")));
+		int labelKey = pool.find("label");
+		assertTrue(target.findAttribute(target.findNode("A"), labelKey) == pool.find("a2"));
+		assertTrue(source.findAttribute(source.findNode("A"), labelKey) == pool.find("a"));
+
+		int sourceEdge = source.findEdge(source.findNode("A"), pool.find("e1"));
+		int targetEdge = target.findEdge(target.findNode("A"), pool.find("e1"));
+		assertTrue(targetEdge != CompactDotGraph.NONE);
+		assertTrue(source.getEdgeLabel(sourceEdge) == target.getEdgeLabel(targetEdge));
+		int portEdge = target.findEdge(target.findNode("C"), pool.find("e2"));
+		assertTrue(target.getLink(portEdge).from().toString().contains("f0"));
+	}
+
+	@Test
+	public void stringGraphsLoadedAgain() throws Exception {
+		DotDiffContext context = new DotDiffContext(sourceDot, targetDot);
+		context.setExecutor(executor);
+		context.loadGraphs();
+		CompactDotGraph first = context.getTargetGraph();
+		assertTrue(context.loadGraphs());
+		assertTrue(context.getTargetGraph() != first);
+		assertTrue(context.getTargetGraph().nodeCount() == first.nodeCount());
+
+		DotDiffContext streamed = new DotDiffContext(
+				new StringReader(sourceDot), new StringReader(targetDot));
+		streamed.loadGraphs();
+		try {
+			streamed.loadGraphs();
+			fail();
+		}
+		catch (IllegalStateException e) {
+			// readers can only be read once
+		}
+	}
+
+	@Test
+	public void failedDiffComputedAgain() throws Exception {
+		RecordingDotDiffEngine engine = new RecordingDotDiffEngine(sourceDot, targetDot);
+		engine.setRendering(graph -> {
+			if (engine.getRendered().size() == 1) {
+				throw new IllegalStateException("render failure");
+			}
+			return "<svg/>";
+		});
+		DotDiffContentPromise promise = new DotDiffContentPromise(engine);
+		try {
+			promise.getContent();
+			fail();
+		}
+		catch (IllegalStateException e) {
+			assertTrue(e.getMessage().equals("render failure"));
+		}
+		assertTrue(promise.getContent().contains("<svg/>"));
+		// nothing left over from the failed attempt
+		assertTrue(engine.getChangedNodes().size() == 1);
+	}
+
+	@Test
+	public void loadErrorsNameTheirVersion() throws Exception {
+		for (boolean concurrent : new boolean[] {false, true}) {
+			DotDiffContext context = new DotDiffContext(sourceDot, "digraph G { A -> }");
+			context.setExecutor(concurrent ? executor : null);
+			try {
+				context.loadGraphs();
+				fail();
+			}
+			catch (DotLoadException e) {
+				assertTrue(e.getVersion().equals(DotLoadException.CURRENT_VERSION));
+				assertTrue(e.getCause() instanceof DotParseException);
+			}
+		}
+
+		DotDiffContext context = new DotDiffContext("graph {", "digraph G { A -> }");
+		context.setExecutor(executor);
+		try {
+			context.loadGraphs();
+			fail();
+		}
+		catch (DotLoadException e) {
+			assertTrue(e.getVersion().equals(DotLoadException.PREVIOUS_VERSION));
+			assertTrue(e.getSuppressed().length == 1);
+		}
+	}
+}
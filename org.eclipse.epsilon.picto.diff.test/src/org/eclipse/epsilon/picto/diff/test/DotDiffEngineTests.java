@@ -78,6 +78,9 @@ public class DotDiffEngineTests {
 
 		assertTrue(engine.getChangedNodes().size() == 1);
 		assertTrue(engine.getChangedNodes().iterator().next().name().value().equals("OperatingSystem"));
+		// changed nodes are painted after registering their changed attributes
+		MutableNode changedNode = engine.getChangedNodes().iterator().next();
+		assertTrue(engine.getChangedAttrs(changedNode).contains("label"));
 
 		assertTrue(engine.getAddedNodes().isEmpty());
 		assertTrue(engine.getRemovedNodes().isEmpty());
@@ -0,0 +1,91 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngine;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffResult;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffResult.Edge;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DotDiffResultTests {
+
+	static String filesLocationFormat = "files/DotDiffEngine/{0}";
+
+	static String baselineDot;
+
+	@BeforeClass
+	public static void readBaseline() throws Exception {
+		baselineDot = read("baseline.dot");
+	}
+
+	static String read(String file) throws Exception {
+		return new String(Files.readAllBytes(
+				Paths.get(MessageFormat.format(filesLocationFormat, file))));
+	}
+
+	protected DotDiffResult diff(String file) throws Exception {
+		return DotDiffEngine.computeDiff(baselineDot, read(file));
+	}
+
+	@Test
+	public void unchangedGraph() throws Exception {
+		assertTrue(diff("baseline.dot").isEmpty());
+	}
+
+	@Test
+	public void removeNodes() throws Exception {
+		DotDiffResult result = diff("baseline-removeNodes.dot");
+
+		assertTrue(result.getRemovedNodes().equals(Arrays.asList("Admin", "Windows")));
+		assertTrue(result.getAddedNodes().isEmpty());
+		assertTrue(result.getChangedNodes().isEmpty());
+		// links to the removed node and from it
+		assertTrue(result.getRemovedEdges().size() == 2);
+		assertTrue(result.getRemovedEdges().get(0).getName().equals("h4"));
+		assertTrue(result.getRemovedEdges().get(1).getSource().equals("Windows"));
+	}
+
+	@Test
+	public void modifyNode() throws Exception {
+		DotDiffResult result = diff("baseline-modifyNode.dot");
+
+		assertTrue(result.getChangedNodes().equals(Arrays.asList("OperatingSystem")));
+		assertTrue(result.getChangedAttributes().get("OperatingSystem").equals(Arrays.asList("label")));
+		assertTrue(result.getAddedEdges().isEmpty() && result.getRemovedEdges().isEmpty());
+		assertTrue(result.getChangedEdges().isEmpty());
+	}
+
+	@Test
+	public void addAndRemoveEdges() throws Exception {
+		DotDiffResult result = diff("baseline-addEdges.dot");
+
+		assertTrue(result.getAddedEdges().size() == 2);
+		Edge edge = result.getAddedEdges().get(1);
+		assertTrue(edge.getSource().equals("OperatingSystem") && edge.getTarget().equals("Admin"));
+		assertTrue(edge.getLabel().equals(" admins* "));
+		assertTrue(result.getRemovedEdges().isEmpty());
+
+		result = diff("baseline-removeEdges.dot");
+		assertTrue(result.getAddedEdges().isEmpty());
+		assertTrue(result.getRemovedEdges().size() == 2);
+		assertTrue(result.getRemovedEdges().get(1).getTarget().equals("Spyware"));
+	}
+
+	@Test
+	public void changeEdges() throws Exception {
+		DotDiffResult result = DotDiffEngine.computeDiff(
+				"digraph G { A -> B [name=\"e1\"]; A -> C [name=\"e2\", label=\"x\"]; }",
+				"digraph G { A -> C [name=\"e1\"]; A -> C [name=\"e2\", label=\"y\"]; }");
+
+		assertTrue(result.getChangedEdges().size() == 2);
+		assertTrue(result.getChangedEdges().get(0).getTarget().equals("C"));
+		assertTrue(result.getChangedEdges().get(1).getLabel().equals("y"));
+		assertTrue(result.getRemovedNodes().equals(Arrays.asList("B")));
+	}
+}
@@ -0,0 +1,153 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContext;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngine;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotLayoutPolicy;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotLayoutPolicy.Layout;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotProcessPool;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderer;
+import org.junit.Test;
+
+import guru.nidi.graphviz.engine.Format;
+
+public class DotLayoutPolicyTests {
+
+	static String oldDot = "digraph G { A [label=\"a\"]; B; C; A -> B [name=\"e1\"]; B -> C [name=\"e2\"]; }";
+	static String newDot = "digraph G { A [label=\"a2\"]; B; D; A -> B [name=\"e1\"]; B -> D [name=\"e3\"]; }";
+
+	@Test
+	public void layoutChosenBySize() {
+		DotLayoutPolicy policy = new DotLayoutPolicy();
+		assertTrue(policy.select(100, 300, () -> false).isDefault());
+		// dense graphs are not laid out with dot
+		assertTrue(policy.select(100, 3000, () -> false).getEngine().equals(DotLayoutPolicy.NEATO));
+		assertTrue(policy.select(1000, 2000, () -> true).getEngine().equals(DotLayoutPolicy.SFDP));
+		assertTrue(policy.select(6000, 2000, () -> true).isListing());
+
+		policy.setLargeLayout("fdp");
+		assertTrue(policy.select(1000, 2000, () -> true).getEngine().equals("fdp"));
+		policy.setAdaptive(false);
+		assertTrue(policy.select(6000, 50000, () -> true).isDefault());
+	}
+
+	@Test
+	public void configuredFromParameters() {
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put(DotLayoutPolicy.MAX_DOT_NODES_PARAMETER, "10");
+		parameters.put(DotLayoutPolicy.MAX_LAYOUT_EDGES_PARAMETER, " 40 ");
+		parameters.put("diffEngine", "dot");
+		DotLayoutPolicy policy = DotLayoutPolicy.fromParameters(parameters);
+		assertTrue(policy.getMaxDotNodes() == 10 && policy.getMaxLayoutEdges() == 40);
+		assertTrue(policy.getMaxDotEdges() == DotLayoutPolicy.DEFAULT_MAX_DOT_EDGES);
+
+		DotDiffEngine engine = new DotDiffEngine();
+		String version = engine.getVersion();
+		engine.configure(parameters);
+		assertTrue(!engine.getVersion().equals(version));
+
+		parameters.put(DotLayoutPolicy.MAX_LAYOUT_NODES_PARAMETER, "-1");
+		try {
+			DotLayoutPolicy.fromParameters(parameters);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("-1"));
+		}
+	}
+
+	@Test
+	public void configureKeepsInstalledPolicy() {
+		DotDiffEngine engine = new DotDiffEngine();
+		DotLayoutPolicy policy = new DotLayoutPolicy();
+		policy.setLargeLayout("fdp");
+		policy.setMaxDotNodes(50);
+		engine.setLayoutPolicy(policy);
+		engine.configure(Collections.singletonMap(DotLayoutPolicy.MAX_DOT_NODES_PARAMETER, "10"));
+
+		assertTrue(engine.getLayoutPolicy() == policy);
+		assertTrue(policy.getMaxDotNodes() == 10 && policy.getLargeLayout().equals("fdp"));
+	}
+
+	@Test
+	public void invalidNumbersNamed() {
+		for (String parameter : new String[] {DotLayoutPolicy.MAX_DOT_EDGES_PARAMETER,
+				DotDiffEngine.CONTEXT_RADIUS_PARAMETER, DotDiffEngine.CONTEXT_BUDGET_PARAMETER}) {
+			try {
+				new DotDiffEngine().configure(Collections.singletonMap(parameter, "many"));
+				fail();
+			}
+			catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage().contains(parameter) && e.getMessage().contains("many"));
+			}
+		}
+	}
+
+	@Test
+	public void comparisonStartsNoDotProcess() throws Exception {
+		int[] starts = {0};
+		DotDiffEngine engine = new DotDiffEngine(new DotDiffContext(oldDot, newDot));
+		engine.setRenderer(new DotRenderer(DotRenderer.Backend.NATIVE, "dot", 1, 1000) {
+			@Override
+			protected synchronized DotProcessPool getProcessPool() {
+				starts[0]++;
+				return null;
+			}
+		});
+		engine.getVersion();
+		engine.load();
+		engine.computeDiff();
+		engine.load();
+		engine.compare();
+		assertTrue(starts[0] == 0);
+
+		// large graphs check the backend once to pick their layout
+		engine.getLayoutPolicy().setMaxDotNodes(1);
+		engine.load();
+		engine.compare();
+		assertTrue(starts[0] == 1);
+		assertTrue(engine.getNewLayout().getEngine().equals(DotLayoutPolicy.NEATO));
+	}
+
+	@Test
+	public void largeTempGraphsUseCheaperLayout() throws Exception {
+		RecordingDotDiffEngine engine = new RecordingDotDiffEngine(oldDot, newDot);
+		engine.setRenderer(new DotRenderer(DotRenderer.Backend.EMBEDDED, "dot", 1, 1000));
+		engine.getLayoutPolicy().setMaxDotNodes(1);
+		engine.load();
+		engine.compare();
+
+		Layout layout = engine.getNewLayout();
+		assertTrue(layout.getEngine().equals(DotLayoutPolicy.NEATO));
+		assertTrue(layout.toString().startsWith("neato layout: "));
+		engine.getNewVersion(Format.SVG);
+		String rendered = engine.getRendered().get(0);
+		assertTrue(rendered.contains("\"layout\"=\"neato\""));
+		assertTrue(rendered.contains("\"splines\"=\"line\""));
+	}
+
+	@Test
+	public void tempGraphsOverLimitListed() throws Exception {
+		RecordingDotDiffEngine engine = new RecordingDotDiffEngine(oldDot, newDot);
+		engine.getLayoutPolicy().setMaxDotNodes(0);
+		engine.getLayoutPolicy().setMaxLayoutNodes(1);
+		engine.load();
+		engine.compare();
+
+		assertTrue(engine.getOldLayout().isListing() && engine.getNewLayout().isListing());
+		String previous = engine.getOldVersion(Format.SVG);
+		assertTrue(previous.contains("Removed node <b>C</b>"));
+		assertTrue(previous.contains("Changed node <b>A</b> (label)"));
+		assertTrue(previous.contains("Removed edge <b>B -&gt; C (e2)</b>"));
+		String current = engine.getNewVersion(Format.SVG);
+		assertTrue(current.contains("Added node <b>D</b>"));
+		assertTrue(!current.contains("Removed"));
+		assertTrue(engine.getRendered().isEmpty());
+	}
+}
@@ -0,0 +1,70 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContext;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngine;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderCache;
+import org.junit.Test;
+
+import guru.nidi.graphviz.engine.Format;
+
+public class DotRenderCacheTests {
+
+	static String oldDot = "digraph G { A [label=\"a\"]; B; A -> B [name=\"e1\"]; }";
+	static String newDot = "digraph G { A [label=\"a2\"]; B; A -> B [name=\"e1\"]; }";
+
+	@Test
+	public void renderedOnceUntilEvicted() {
+		DotRenderCache cache = new DotRenderCache(1024);
+		int[] renders = {0};
+		String key = DotRenderCache.getKey("digraph { A }", 1.3, "SVG", "NATIVE");
+		for (int i = 0; i < 3; i++) {
+			assertTrue(cache.get(key, () -> "<svg>" + renders[0]++ + "</svg>").equals("<svg>0</svg>"));
+		}
+		assertTrue(renders[0] == 1);
+		assertTrue(cache.getHits() == 2 && cache.getMisses() == 1);
+
+		// scale, format and backend are part of the key
+		assertTrue(!key.equals(DotRenderCache.getKey("digraph { A }", 1.0, "SVG", "NATIVE")));
+		assertTrue(!key.equals(DotRenderCache.getKey("digraph { A }", 1.3, "PNG", "NATIVE")));
+		assertTrue(!key.equals(DotRenderCache.getKey("digraph { A }", 1.3, "SVG", "EMBEDDED")));
+
+		// 1024 bytes fit 512 chars of keys and renderings
+		String other = DotRenderCache.getKey("digraph { B }", 1.3, "SVG", "NATIVE");
+		cache.put(other, new String(new char[400]));
+		assertTrue(cache.getEvictions() == 1 && cache.getEntryCount() == 1);
+		assertTrue(cache.getSize() <= cache.getMaxSize());
+		assertTrue(cache.get(key) == null);
+
+		cache.put(key, new String(new char[1000]));
+		assertTrue(cache.get(key) == null && cache.get(other) != null);
+	}
+
+	@Test
+	public void identicalTempGraphsShareRenderings() throws Exception {
+		List<String> keys = new ArrayList<>();
+		// renderings are never requested to graphviz, all lookups hit
+		DotRenderCache cache = new DotRenderCache(DotRenderCache.DEFAULT_MAX_SIZE) {
+			@Override
+			public synchronized String get(String key) {
+				keys.add(key);
+				return "<svg/>";
+			}
+		};
+		for (int i = 0; i < 2; i++) {
+			DotDiffEngine engine = new DotDiffEngine(new DotDiffContext(oldDot, newDot));
+			engine.setRenderCache(cache);
+			engine.load();
+			engine.compare();
+			assertTrue(engine.getOldVersion(Format.SVG).equals("<svg/>"));
+			assertTrue(engine.getNewVersion(Format.SVG).equals("<svg/>"));
+		}
+		assertTrue(keys.size() == 4);
+		assertTrue(!keys.get(0).equals(keys.get(1)));
+		assertTrue(keys.get(0).equals(keys.get(2)) && keys.get(1).equals(keys.get(3)));
+	}
+}
@@ -0,0 +1,113 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContentPromise;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContext;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngine;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderCache;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import guru.nidi.graphviz.engine.Format;
+
+public class DotRenderPoolTests {
+
+	static String oldDot = "digraph G { A [label=\"a\"]; B; A -> B [name=\"e1\"]; }";
+	static String newDot = "digraph G { A [label=\"a2\"]; B; A -> B [name=\"e1\"]; }";
+
+	protected DotRenderPool pool;
+
+	@Before
+	public void createPool() {
+		pool = new DotRenderPool(2);
+	}
+
+	@After
+	public void shutdownPool() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void versionsRenderedConcurrentlyInOrder() throws Exception {
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		// both renderings must be running at the same time to finish
+		CountDownLatch started = new CountDownLatch(2);
+		DotRenderCache cache = new DotRenderCache(0) {
+			@Override
+			public String get(String key, Supplier<String> renderer) {
+				threads.add(Thread.currentThread().getName());
+				started.countDown();
+				try {
+					if (!started.await(10, TimeUnit.SECONDS)) {
+						return "<svg>sequential</svg>";
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "graph";
+			}
+		};
+		DotDiffEngine engine = new DotDiffEngine(new DotDiffContext(oldDot, newDot)) {
+			@Override
+			public String getOldVersion(Format format) {
+				return "<svg>previous " + super.getOldVersion(format) + "</svg>";
+			}
+
+			@Override
+			public String getNewVersion(Format format) {
+				return "<svg>current " + super.getNewVersion(format) + "</svg>";
+			}
+		};
+		engine.setRenderCache(cache);
+		engine.setRenderPool(pool);
+
+		String content = new DotDiffContentPromise(engine).getContent();
+		assertTrue(!content.contains("sequential"));
+		int current = content.indexOf("<svg>current");
+		int previous = content.indexOf("<svg>previous");
+		assertTrue(current >= 0 && previous > current);
+		assertTrue(threads.size() == 2);
+		for (String thread : threads) {
+			assertTrue(thread.startsWith("picto-diff-render-"));
+		}
+	}
+
+	@Test
+	public void defaultPoolUsedUnlessDisabled() {
+		DotDiffEngine engine = new DotDiffEngine();
+		assertTrue(engine.getRenderPool() == DotRenderPool.getDefault());
+		engine.configure(Collections.singletonMap(DotDiffEngine.CONCURRENT_RENDERING_PARAMETER, "false"));
+		assertTrue(engine.getRenderPool() == null);
+	}
+
+	@Test
+	public void renderingErrorsPropagated() throws Exception {
+		DotDiffEngine engine = new DotDiffEngine(new DotDiffContext(oldDot, newDot));
+		engine.setRenderCache(new DotRenderCache(0) {
+			@Override
+			public String get(String key, Supplier<String> renderer) {
+				throw new IllegalStateException("layout failed");
+			}
+		});
+		engine.setRenderPool(pool);
+		try {
+			new DotDiffContentPromise(engine).getContent();
+			fail();
+		}
+		catch (IllegalStateException e) {
+			assertTrue(e.getMessage().equals("layout failed"));
+		}
+	}
+}
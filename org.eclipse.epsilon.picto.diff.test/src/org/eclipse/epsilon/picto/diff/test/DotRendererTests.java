@@ -0,0 +1,234 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContentPromise;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContext;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngine;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotProcessPool;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderPool;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderTimeoutException;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderer;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderer.Backend;
+import org.junit.Test;
+
+import guru.nidi.graphviz.engine.Format;
+
+public class DotRendererTests {
+
+	@Test
+	public void fallsBackToEmbeddedEngine() {
+		int[] embedded = {0};
+		DotRenderer renderer = new DotRenderer(Backend.NATIVE, "no-such-dot-executable", 1, 1000) {
+			@Override
+			protected String renderEmbedded(String dot, double scale, Format format) {
+				embedded[0]++;
+				return "<svg/>";
+			}
+		};
+		assertTrue(renderer.render("digraph { A }", 1, Format.SVG).equals("<svg/>"));
+		assertTrue(renderer.render("digraph { B }", 1, Format.SVG).equals("<svg/>"));
+		assertTrue(embedded[0] == 2);
+		assertTrue(!renderer.isNative());
+		renderer.shutdown();
+	}
+
+	/**
+	 * Renderer on which dot always times out
+	 */
+	protected DotRenderer createTimingOutRenderer(int[] embedded) {
+		return new DotRenderer(Backend.NATIVE, "dot", 1, 1000) {
+			@Override
+			public boolean isNative() {
+				return true;
+			}
+
+			@Override
+			protected String renderNative(String dot) throws TimeoutException {
+				throw new TimeoutException("dot did not finish rendering in 1000 ms");
+			}
+
+			@Override
+			protected String renderEmbedded(String dot, double scale, Format format) {
+				embedded[0]++;
+				return "<svg/>";
+			}
+		};
+	}
+
+	@Test
+	public void timeoutFallbackOptional() {
+		int[] embedded = {0};
+		DotRenderer renderer = createTimingOutRenderer(embedded);
+		assertTrue(renderer.render("digraph { A }", 1, Format.SVG, true).equals("<svg/>"));
+		try {
+			renderer.render("digraph { A }", 1, Format.SVG, false);
+			fail();
+		}
+		catch (DotRenderTimeoutException e) {
+			assertTrue(e.getTimeoutMillis() == 1000);
+		}
+		assertTrue(embedded[0] == 1);
+	}
+
+	@Test
+	public void interruptedRenderingNotRetried() {
+		int[] embedded = {0};
+		DotRenderer renderer = new DotRenderer(Backend.NATIVE, "dot", 1, 1000) {
+			@Override
+			public boolean isNative() {
+				return true;
+			}
+
+			@Override
+			protected String renderNative(String dot) throws InterruptedException {
+				throw new InterruptedException();
+			}
+
+			@Override
+			protected String renderEmbedded(String dot, double scale, Format format) {
+				embedded[0]++;
+				return "<svg/>";
+			}
+		};
+		try {
+			renderer.render("digraph { A }", 1, Format.SVG);
+			fail();
+		}
+		catch (CancellationException e) {
+			assertTrue(e.getCause() instanceof InterruptedException);
+		}
+		// the interruption is kept for the caller
+		assertTrue(Thread.interrupted());
+		assertTrue(embedded[0] == 0);
+	}
+
+	@Test
+	public void largeGraphsListedOnTimeout() throws Exception {
+		String oldDot = "digraph G { A [label=\"a\"]; A -> B [name=\"e1\"]; }";
+		String newDot = "digraph G { A [label=\"a2\"]; A -> B [name=\"e1\"]; }";
+		for (boolean large : new boolean[] {false, true}) {
+			int[] embedded = {0};
+			DotDiffEngine engine = new DotDiffEngine(new DotDiffContext(oldDot, newDot));
+			engine.setRenderer(createTimingOutRenderer(embedded));
+			engine.setRenderCache(null);
+			engine.setRenderPool(null);
+			if (large) {
+				engine.getLayoutPolicy().setMaxDotNodes(0);
+			}
+			String content = new DotDiffContentPromise(engine).getContent();
+			// graphs laid out by dot are still rendered by the embedded engine
+			assertTrue(content.contains("changes are listed instead") == large);
+			assertTrue(embedded[0] == (large ? 0 : 2));
+		}
+	}
+
+	@Test
+	public void backendConfiguredPerEngine() {
+		DotRenderer defaultRenderer = DotRenderer.getDefault();
+		DotDiffEngine engine = new DotDiffEngine();
+		engine.setRenderer(createTimingOutRenderer(new int[1]));
+		String version = engine.getVersion();
+		engine.configure(Collections.singletonMap(DotDiffEngine.RENDERER_PARAMETER, "embedded"));
+
+		assertTrue(engine.getRenderer() == DotRenderer.getShared(Backend.EMBEDDED));
+		assertTrue(DotRenderer.getDefault() == defaultRenderer);
+		// cached diffs are told apart by the backend
+		assertTrue(!engine.getVersion().equals(version));
+	}
+
+	@Test
+	public void warmUpRendersOnEveryPoolThread() throws Exception {
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		DotRenderer renderer = new DotRenderer(Backend.EMBEDDED, "dot", 1, 1000) {
+			@Override
+			protected String renderEmbedded(String dot, double scale, Format format) {
+				threads.add(Thread.currentThread().getName());
+				throw new IllegalStateException("no engine");
+			}
+		};
+		DotRenderPool pool = new DotRenderPool(3);
+		try {
+			List<Future<String>> renderings = renderer.warmUp(pool);
+			assertTrue(renderings.size() == 3);
+			for (Future<String> rendering : renderings) {
+				try {
+					rendering.get(10, TimeUnit.SECONDS);
+					fail();
+				}
+				catch (ExecutionException e) {
+					// left for the first actual rendering
+				}
+			}
+			// graphviz-java initialises one engine per thread
+			assertTrue(threads.size() == 3);
+			for (String thread : threads) {
+				assertTrue(thread.startsWith("picto-diff-render-"));
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void invalidPropertiesIgnored() {
+		try {
+			System.setProperty(DotRenderer.BACKEND_PROPERTY, "js");
+			System.setProperty(DotRenderer.TIMEOUT_PROPERTY, "10s");
+			assertTrue(DotRenderer.getBackendProperty() == Backend.NATIVE);
+			assertTrue(DotRenderer.getTimeoutProperty() == DotProcessPool.DEFAULT_TIMEOUT_MILLIS);
+			System.setProperty(DotRenderer.TIMEOUT_PROPERTY, "0");
+			assertTrue(DotRenderer.getTimeoutProperty() == DotProcessPool.DEFAULT_TIMEOUT_MILLIS);
+
+			System.setProperty(DotRenderer.BACKEND_PROPERTY, "embedded");
+			System.setProperty(DotRenderer.TIMEOUT_PROPERTY, " 500 ");
+			assertTrue(DotRenderer.getBackendProperty() == Backend.EMBEDDED);
+			assertTrue(DotRenderer.getTimeoutProperty() == 500);
+		}
+		finally {
+			System.clearProperty(DotRenderer.BACKEND_PROPERTY);
+			System.clearProperty(DotRenderer.TIMEOUT_PROPERTY);
+		}
+	}
+
+	@Test
+	public void nativeSvgPostProcessed() {
+		String svg = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+				+ "<!-- Generated by graphviz -->\n"
+				+ "<svg width=\"62pt\" height=\"116pt\"\n viewBox=\"0.00 0.00 62.00 116.00\">\n"
+				+ "<g id=\"graph0\" class=\"graph\" transform=\"scale(1 1) rotate(0) translate(4 112)\">\n"
+				+ "</g>\n</svg>\n";
+		String processed = DotRenderer.postProcessSvg(svg, "digraph { A -> B }", 1.5);
+		assertTrue(processed.startsWith("<svg width=\"93px\" height=\"174px\"\n viewBox="));
+		assertTrue(processed.contains("transform=\"scale(1.0 1.0) rotate(0)"));
+
+		// sizes in points are scaled to the graph resolution
+		processed = DotRenderer.postProcessSvg(svg, "digraph { dpi=144; A -> B }", 1);
+		assertTrue(processed.contains("transform=\"scale(0.5 0.5) rotate(0)"));
+	}
+
+	@Test
+	public void backendNamesParsed() {
+		assertTrue(Backend.parse("native") == Backend.NATIVE);
+		assertTrue(Backend.parse(" Embedded ") == Backend.EMBEDDED);
+		try {
+			Backend.parse("js");
+			assertTrue(false);
+		}
+		catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("js"));
+		}
+	}
+}
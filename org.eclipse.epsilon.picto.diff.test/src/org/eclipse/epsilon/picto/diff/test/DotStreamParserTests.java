@@ -0,0 +1,102 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.model.CompactDotGraph;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.DotParseException;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.DotStreamParser;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.StringPool;
+import org.junit.Before;
+import org.junit.Test;
+
+import guru.nidi.graphviz.attribute.Label;
+import guru.nidi.graphviz.model.Compass;
+import guru.nidi.graphviz.model.Link;
+import guru.nidi.graphviz.model.PortNode;
+
+public class DotStreamParserTests {
+
+	protected StringPool pool;
+
+	@Before
+	public void createPool() {
+		pool = new StringPool();
+	}
+
+	protected CompactDotGraph parse(String dot) throws Exception {
+		return new DotStreamParser(pool).parse(new StringReader(dot));
+	}
+
+	@Test
+	public void nodesTakeTheDefaultsOfTheirCreation() throws Exception {
+		CompactDotGraph graph = parse("digraph G {\n"
+				+ "  // comment\n"
+				+ "  A;\n"
+				+ "  node [shape=box, color=\"re\" + \"d\"];\n"
+				+ "  /* block\n comment */\n"
+				+ "  B [label=<<b>B</b>>, color=blue];\n"
+				+ "  A [label=\"a \\\"quoted\\\" name\"];\n"
+				+ "}");
+
+		assertTrue(graph.nodeCount() == 2);
+		int a = graph.findNode("A");
+		int b = graph.findNode("B");
+		assertTrue(a == 0 && b == 1);
+		assertTrue(graph.findAttribute(a, pool.find("shape")) == CompactDotGraph.NONE);
+		assertTrue(pool.get(graph.findAttribute(a, pool.find("label"))).equals("a \"quoted\" name"));
+		assertTrue(graph.findAttribute(b, pool.find("shape")) == pool.find("box"));
+		// statement attributes override the defaults
+		assertTrue(graph.findAttribute(b, pool.find("color")) == pool.find("blue"));
+
+		Object label = graph.getNode(b).attrs().get("label");
+		assertTrue(label instanceof Label && ((Label) label).isHtml());
+		assertTrue(((Label) label).value().equals("<b>B</b>"));
+	}
+
+	@Test
+	public void edgesConnectPortsAndSubgraphs() throws Exception {
+		CompactDotGraph graph = parse("digraph G {\n"
+				+ "  edge [color=gray];\n"
+				+ "  A:f0:n -> B:s [name=\"e1\"];\n"
+				+ "  A -> { C D } [name=\"e2\", label=\"x\"];\n"
+				+ "  subgraph cluster_0 { E -> F }\n"
+				+ "}");
+
+		assertTrue(graph.nodeCount() == 6 && graph.edgeCount() == 4);
+		int a = graph.findNode("A");
+		assertTrue(graph.edgesEnd(a) - graph.edgesStart(a) == 3);
+		int e1 = graph.findEdge(a, pool.find("e1"));
+		assertTrue(graph.getEdgeTarget(e1) == graph.findNode("B"));
+		assertTrue(graph.getEdgeTargetKind(e1) == CompactDotGraph.TARGET_PORT);
+		assertTrue(graph.findEdgeAttribute(e1, pool.find("color")) == pool.find("gray"));
+
+		Link link = graph.getLink(e1);
+		assertTrue(link.from() instanceof PortNode);
+		assertTrue(((PortNode) link.from()).port().record().equals("f0"));
+		assertTrue(((PortNode) link.to()).port().compass() == Compass.SOUTH);
+
+		// edges to a subgraph connect all of its nodes
+		int e2 = graph.findEdge(a, pool.find("e2"));
+		assertTrue(graph.getEdgeTarget(e2) == graph.findNode("C"));
+		assertTrue(graph.getEdgeTarget(e2 + 1) == graph.findNode("D"));
+		assertTrue(graph.getEdgeLabel(e2 + 1) == pool.find("x"));
+
+		int e = graph.findNode("E");
+		assertTrue(graph.getEdgeTarget(graph.edgesStart(e)) == graph.findNode("F"));
+	}
+
+	@Test
+	public void errorsReportTheirPosition() throws Exception {
+		try {
+			parse("digraph G {\n  A -> ;\n}");
+			fail();
+		}
+		catch (DotParseException e) {
+			assertTrue(e.getLine() == 2);
+			assertTrue(e.getColumn() == 8);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.epsilon.picto.diff.normalisers.NormaliserChain;
+import org.eclipse.epsilon.picto.diff.normalisers.PatternNormaliser;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NormaliserChainTests {
+
+	protected NormaliserChain chain;
+
+	@Before
+	public void setupChain() {
+		chain = NormaliserChain.createDefault();
+	}
+
+	@Test
+	public void removeLinks() {
+		String text = "<a href=\"javascript:top.showView(['a'])\">a</a>"
+				+ "<a href=\"javascript:top.showElement('1', 'x')\">b</a>";
+
+		String expected = text
+				.replaceAll(NormaliserChain.SHOW_VIEW_REGEX, "")
+				.replaceAll(NormaliserChain.SHOW_ELEMENT_REGEX, "");
+
+		assertTrue(chain.normalise(text, "html").equals(expected));
+		assertTrue(chain.normalise(text, "html").equals("<a href=\"\">a</a><a href=\"\">b</a>"));
+	}
+
+	@Test
+	public void unmatchedTextNotCopied() {
+		String text = "digraph { a -> b }";
+		assertTrue(chain.normalise(text, "graphviz-dot") == text);
+	}
+
+	@Test
+	public void formatSpecificNormalisers() {
+		String text = "a,b\r\nc,d\r\n";
+		assertTrue(chain.normalise(text, "csv").equals("a,b\nc,d\n"));
+		assertTrue(chain.normalise(text, "html") == text);
+	}
+
+	@Test
+	public void customNormaliser() {
+		chain.addNormaliser(new PatternNormaliser("timestamp=\\d+", "text"));
+		assertTrue(chain.normalise("v1 timestamp=1234", "text").equals("v1 "));
+	}
+}
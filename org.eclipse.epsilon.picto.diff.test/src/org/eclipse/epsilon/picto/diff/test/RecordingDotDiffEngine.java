@@ -0,0 +1,53 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffContext;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngine;
+
+import guru.nidi.graphviz.engine.Format;
+import guru.nidi.graphviz.model.MutableGraph;
+
+/**
+ * Engine that records the temp graphs it renders (and the threads that
+ * render them) instead of running graphviz, returning a stub rendering
+ */
+public class RecordingDotDiffEngine extends DotDiffEngine {
+
+	protected final List<String> rendered = new CopyOnWriteArrayList<>();
+	protected final Set<String> threads = ConcurrentHashMap.newKeySet();
+	protected Function<MutableGraph, String> rendering = graph -> "<svg/>";
+
+	public RecordingDotDiffEngine(String previous, String current) {
+		super(new DotDiffContext(previous, current));
+	}
+
+	@Override
+	protected String render(MutableGraph graph, Format format) {
+		rendered.add(graph.toString());
+		threads.add(Thread.currentThread().getName());
+		return rendering.apply(graph);
+	}
+
+	/**
+	 * DOT of the rendered graphs, in rendering order
+	 */
+	public List<String> getRendered() {
+		return rendered;
+	}
+
+	public Set<String> getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Stub rendering of each graph, <svg/> unless set
+	 */
+	public void setRendering(Function<MutableGraph, String> rendering) {
+		this.rendering = rendering;
+	}
+}
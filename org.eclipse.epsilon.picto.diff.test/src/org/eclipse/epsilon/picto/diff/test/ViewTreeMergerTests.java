@@ -0,0 +1,361 @@
+package org.eclipse.epsilon.picto.diff.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.epsilon.picto.ContentPromise;
+import org.eclipse.epsilon.picto.StaticContentPromise;
+import org.eclipse.epsilon.picto.ViewTree;
+import org.eclipse.epsilon.picto.diff.FingerprintedContentPromise;
+import org.eclipse.epsilon.picto.diff.ViewTreeMerger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ViewTreeMergerTests {
+
+	protected ViewTree oldTree;
+	protected ViewTree newTree;
+
+	@Before
+	public void setupTrees() {
+		oldTree = new ViewTree();
+		newTree = new ViewTree();
+	}
+
+	protected ViewTree addChild(ViewTree parent, String name, String content) {
+		ViewTree child = new ViewTree(name);
+		child.setPromise(new StaticContentPromise(content));
+		child.setFormat("text");
+		parent.getChildren().add(child);
+		return child;
+	}
+
+	protected void assertChild(ViewTree child, String name, String icon) {
+		assertTrue(child.getName().equals(name));
+		assertTrue(child.getIcon().equals(icon));
+	}
+
+	@Test
+	public void matchedDeletedAndAddedOrder() throws Exception {
+		addChild(oldTree, "A", "a");
+		addChild(oldTree, "B", "b");
+		addChild(oldTree, "C", "c");
+		addChild(newTree, "D", "d");
+		addChild(newTree, "C", "c2");
+		addChild(newTree, "A", "a");
+
+		List<ViewTree> children = ViewTreeMerger.diffMerge(oldTree, newTree, "dummy").getChildren();
+
+		assertTrue(children.size() == 4);
+		assertChild(children.get(0), "A", "pdiff-unchanged");
+		assertChild(children.get(1), "B", "pdiff-deleted");
+		assertChild(children.get(2), "C", "pdiff-changed");
+		assertChild(children.get(3), "D", "pdiff-added");
+	}
+
+	@Test
+	public void duplicateNamesMatchedInOrder() throws Exception {
+		addChild(oldTree, "D", "d1");
+		addChild(oldTree, "D", "d2");
+		addChild(newTree, "D", "d1");
+		addChild(newTree, "D", "d3");
+		addChild(newTree, "D", "d2");
+
+		List<ViewTree> children = ViewTreeMerger.diffMerge(oldTree, newTree, "dummy").getChildren();
+
+		assertTrue(children.size() == 3);
+		assertChild(children.get(0), "D", "pdiff-unchanged");
+		assertChild(children.get(1), "D", "pdiff-changed");
+		assertChild(children.get(2), "D", "pdiff-added");
+		assertTrue(children.get(2).getContent().getText().equals("d2"));
+	}
+
+	@Test
+	public void nestedChildren() throws Exception {
+		ViewTree oldParent = addChild(oldTree, "P", "p");
+		addChild(oldParent, "X", "x");
+		ViewTree newParent = addChild(newTree, "P", "p");
+		addChild(newParent, "X", "x2");
+		addChild(newParent, "Y", "y");
+
+		List<ViewTree> children = ViewTreeMerger.diffMerge(oldTree, newTree, "dummy").getChildren();
+
+		assertTrue(children.size() == 1);
+		List<ViewTree> nested = children.get(0).getChildren();
+		assertTrue(nested.size() == 2);
+		assertChild(nested.get(0), "X", "pdiff-changed");
+		assertChild(nested.get(1), "Y", "pdiff-added");
+	}
+
+	@Test
+	public void parallelMergeKeepsOrder() throws Exception {
+		for (int i = 0; i < 50; i++) {
+			ViewTree oldChild = addChild(oldTree, "N" + i, "n" + i);
+			ViewTree newChild = addChild(newTree, "N" + (49 - i), "n" + (49 - i) + (i % 3 == 0 ? "*" : ""));
+			for (int j = 0; j < 5; j++) {
+				addChild(oldChild, "M" + j, "m" + j);
+				addChild(newChild, "M" + (4 - j), "m" + (4 - j));
+			}
+		}
+
+		ViewTree sequential = new ViewTreeMerger("dummy").merge(oldTree, newTree);
+		ViewTreeMerger parallelMerger = new ViewTreeMerger("dummy");
+		parallelMerger.setParallelism(4);
+		ViewTree parallel = parallelMerger.merge(oldTree, newTree);
+
+		assertSameStructure(sequential, parallel);
+	}
+
+	@Test
+	public void parallelMergeEvaluatesPromisesOneAtATime() throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger overlaps = new AtomicInteger();
+		for (int i = 0; i < 40; i++) {
+			for (ViewTree tree : new ViewTree[] { oldTree, newTree }) {
+				String content = "n" + i + (tree == newTree && i % 2 == 0 ? "*" : "");
+				addChild(tree, "N" + i, "").setPromise(() -> {
+					if (running.incrementAndGet() > 1) {
+						overlaps.incrementAndGet();
+					}
+					Thread.sleep(1);
+					running.decrementAndGet();
+					return content;
+				});
+			}
+		}
+
+		ViewTreeMerger merger = new ViewTreeMerger("dummy");
+		merger.setParallelism(4);
+		merger.merge(oldTree, newTree);
+
+		assertTrue(merger.getContentEvaluations() == 80);
+		assertTrue(overlaps.get() == 0);
+	}
+
+	@Test
+	public void iterativeMergeHandlesDeepTrees() throws Exception {
+		ViewTree oldParent = oldTree;
+		ViewTree newParent = newTree;
+		for (int i = 0; i < 20000; i++) {
+			oldParent = addChild(oldParent, "L" + i, "l" + i);
+			addChild(newParent, "S" + i, "s" + i);
+			newParent = addChild(newParent, "L" + i, "l" + i + (i % 1000 == 0 ? "*" : ""));
+		}
+
+		ViewTreeMerger merger = new ViewTreeMerger("dummy");
+		merger.setIterative(true);
+		ViewTree merged = merger.merge(oldTree, newTree);
+
+		ViewTree level = merged;
+		for (int i = 0; i < 20000; i++) {
+			assertTrue(level.getChildren().size() == 2);
+			assertChild(level.getChildren().get(1), "S" + i, "pdiff-added");
+			level = level.getChildren().get(0);
+			assertChild(level, "L" + i, i % 1000 == 0 ? "pdiff-changed" : "pdiff-unchanged");
+		}
+	}
+
+	@Test
+	public void iterativeMergeKeepsOrder() throws Exception {
+		ViewTree oldParent = addChild(oldTree, "P", "p");
+		addChild(oldParent, "X", "x");
+		addChild(addChild(oldParent, "Z", "z"), "Z1", "z1");
+		addChild(oldTree, "Q", "q");
+		ViewTree newParent = addChild(newTree, "P", "p2");
+		addChild(addChild(newParent, "Z", "z"), "Z2", "z2");
+		addChild(newParent, "Y", "y");
+		addChild(newTree, "Q", "q");
+
+		ViewTree recursive = new ViewTreeMerger("dummy").merge(oldTree, newTree);
+		ViewTreeMerger iterativeMerger = new ViewTreeMerger("dummy");
+		iterativeMerger.setIterative(true);
+		ViewTree iterative = iterativeMerger.merge(oldTree, newTree);
+
+		assertSameStructure(recursive, iterative);
+	}
+
+	@Test
+	public void unchangedSubtreesMatchFullMerge() throws Exception {
+		for (ViewTree tree : new ViewTree[] { oldTree, newTree }) {
+			ViewTree folder = addChild(tree, "F", "");
+			folder.setIcon("folder");
+			addChild(addChild(folder, "D", "d1"), "X", "x");
+			addChild(folder, "D", "d2");
+			addChild(folder, "E", "");
+		}
+		addChild(oldTree, "C", "c");
+		addChild(newTree, "C", "c2");
+
+		ViewTree skipping = new ViewTreeMerger("dummy").merge(oldTree, newTree);
+		ViewTreeMerger fullMerger = new ViewTreeMerger("dummy");
+		fullMerger.setSkipUnchangedSubtrees(false);
+		ViewTree full = fullMerger.merge(oldTree, newTree);
+
+		assertSameStructure(full, skipping);
+		ViewTree folder = skipping.getChildren().get(0);
+		assertChild(folder, "F", "folder");
+		assertChild(folder.getChildren().get(0).getChildren().get(0), "X", "pdiff-unchanged");
+		assertTrue(folder.getChildren().get(1).getContent().getText().equals("d2"));
+
+		ViewTreeMerger parallelMerger = new ViewTreeMerger("dummy");
+		parallelMerger.setParallelism(2);
+		assertSameStructure(full, parallelMerger.merge(oldTree, newTree));
+
+		// icons are computed while merging, so unchanged subtrees are known
+		ViewTreeMerger lazyMerger = new ViewTreeMerger("dummy");
+		lazyMerger.setLazy(true);
+		lazyMerger.setDeferIcons(false);
+		ViewTree lazy = lazyMerger.merge(oldTree, newTree);
+		assertSameStructure(full, lazy);
+		ViewTree copied = lazy.getChildren().get(0).getChildren().get(1);
+		assertTrue(copied.getPromise() == oldTree.getChildren().get(0).getChildren().get(1).getPromise());
+	}
+
+	@Test
+	public void addedViewsNotEvaluatedForFingerprints() throws Exception {
+		ViewTree oldParent = addChild(oldTree, "P", "p");
+		addChild(oldParent, "X", "x");
+		ViewTree newParent = addChild(newTree, "P", "p");
+		addChild(newParent, "X", "x");
+		CountingContentPromise addedPromise = new CountingContentPromise("y");
+		addChild(newParent, "Y", "").setPromise(addedPromise);
+
+		List<ViewTree> nested = ViewTreeMerger.diffMerge(oldTree, newTree, "dummy")
+				.getChildren().get(0).getChildren();
+
+		assertChild(nested.get(0), "X", "pdiff-unchanged");
+		assertChild(nested.get(1), "Y", "pdiff-added");
+		assertTrue(addedPromise.getCalls() == 0);
+	}
+
+	@Test
+	public void lazyMergeDefersComparison() throws Exception {
+		CountingContentPromise oldPromise = new CountingContentPromise("a");
+		CountingContentPromise newPromise = new CountingContentPromise("a2");
+		addChild(oldTree, "A", "").setPromise(oldPromise);
+		addChild(newTree, "A", "").setPromise(newPromise);
+
+		ViewTreeMerger merger = new ViewTreeMerger("dummy");
+		merger.setLazy(true);
+		ViewTree diffView = merger.merge(oldTree, newTree).getChildren().get(0);
+
+		assertTrue(oldPromise.getCalls() == 0);
+		assertTrue(newPromise.getCalls() == 0);
+		assertTrue(diffView.getFormat().equals("html"));
+
+		assertTrue(diffView.getContent().getText().contains("A: Content differs"));
+		assertTrue(diffView.getIcon().equals("pdiff-changed"));
+		assertTrue(oldPromise.getCalls() > 0);
+	}
+
+	@Test
+	public void contentEvaluatedOncePerMerge() throws Exception {
+		CountingContentPromise oldChanged = new CountingContentPromise("a");
+		CountingContentPromise newChanged = new CountingContentPromise("a2");
+		CountingContentPromise oldUnchanged = new CountingContentPromise("b");
+		CountingContentPromise newUnchanged = new CountingContentPromise("b");
+		addChild(oldTree, "A", "").setPromise(oldChanged);
+		addChild(newTree, "A", "").setPromise(newChanged);
+		addChild(oldTree, "B", "").setPromise(oldUnchanged);
+		addChild(newTree, "B", "").setPromise(newUnchanged);
+
+		ViewTreeMerger merger = new ViewTreeMerger("dummy");
+		ViewTree merged = merger.merge(oldTree, newTree);
+		// unchanged views show the old content
+		merged.getChildren().get(1).getContent();
+
+		assertTrue(oldChanged.getCalls() == 1);
+		assertTrue(newChanged.getCalls() == 1);
+		assertTrue(oldUnchanged.getCalls() == 1);
+		assertTrue(newUnchanged.getCalls() == 1);
+		assertTrue(merger.getContentEvaluations() == 4);
+	}
+
+	@Test
+	public void normalisedLinksIgnored() throws Exception {
+		addChild(oldTree, "A", "<a href=\"javascript:top.showView(['a'])\">a</a>");
+		addChild(newTree, "A", "<a href=\"javascript:top.showView(['b'])\">a</a>");
+		addChild(oldTree, "B", "<a href=\"javascript:top.showElement('1')\">b</a>");
+		addChild(newTree, "B", "<a href=\"javascript:top.showElement('2')\">c</a>");
+
+		List<ViewTree> children = ViewTreeMerger.diffMerge(oldTree, newTree, "dummy").getChildren();
+
+		assertChild(children.get(0), "A", "pdiff-unchanged");
+		assertChild(children.get(1), "B", "pdiff-changed");
+	}
+
+	@Test
+	public void suppliedFingerprintsAvoidEvaluation() throws Exception {
+		// the supplied fingerprint decides, contents are not digested
+		FingerprintedPromise oldPromise = new FingerprintedPromise("a", "f1");
+		FingerprintedPromise newPromise = new FingerprintedPromise("a ", "f1");
+		addChild(oldTree, "A", "").setPromise(oldPromise);
+		addChild(newTree, "A", "").setPromise(newPromise);
+		addChild(oldTree, "E", "").setPromise(new FingerprintedPromise("", "f2"));
+		addChild(newTree, "E", "").setPromise(new FingerprintedPromise("", "f2"));
+
+		ViewTreeMerger merger = new ViewTreeMerger("dummy");
+		// each pair of views is diffed
+		merger.setSkipUnchangedSubtrees(false);
+		List<ViewTree> children = merger.merge(oldTree, newTree).getChildren();
+
+		assertChild(children.get(0), "A", "pdiff-unchanged");
+		assertTrue(oldPromise.getCalls() == 0);
+		assertTrue(newPromise.getCalls() == 0);
+		// empty views are diffed as such, whatever their fingerprints
+		assertTrue(!children.get(1).getIcon().equals("pdiff-unchanged"));
+		assertTrue(children.get(1).getPromise() instanceof StaticContentPromise);
+	}
+
+	protected void assertSameStructure(ViewTree expected, ViewTree actual) {
+		assertTrue(expected.getName().equals(actual.getName()));
+		assertTrue(expected.getIcon().equals(actual.getIcon()));
+		assertTrue(expected.getChildren().size() == actual.getChildren().size());
+		for (int i = 0; i < expected.getChildren().size(); i++) {
+			assertSameStructure(expected.getChildren().get(i), actual.getChildren().get(i));
+		}
+	}
+
+	protected static class CountingContentPromise implements ContentPromise {
+
+		protected String content;
+		protected int calls = 0;
+
+		public CountingContentPromise(String content) {
+			this.content = content;
+		}
+
+		@Override
+		public String getContent() throws Exception {
+			calls++;
+			return content;
+		}
+
+		public int getCalls() {
+			return calls;
+		}
+	}
+
+	protected static class FingerprintedPromise extends CountingContentPromise
+			implements FingerprintedContentPromise {
+
+		protected String fingerprint;
+
+		public FingerprintedPromise(String content, String fingerprint) {
+			super(content);
+			this.fingerprint = fingerprint;
+		}
+
+		@Override
+		public String getFingerprint() {
+			return fingerprint;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return content.isEmpty();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package org.eclipse.epsilon.picto.diff;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming digest of view contents. Spans matched by the ignored pattern
+ * are skipped while digesting, so the fingerprint corresponds to the
+ * normalised content without building a normalised copy of the text
+ */
+public class ContentFingerprint {
+
+	private static final String ALGORITHM = "SHA-256";
+	private static final int BUFFER_SIZE = 8192;
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	protected final MessageDigest digest;
+	protected final byte[] buffer = new byte[BUFFER_SIZE];
+	protected int position = 0;
+
+	public ContentFingerprint() {
+		try {
+			digest = MessageDigest.getInstance(ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e) {
+			// every java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static String of(CharSequence text, Pattern ignored) {
+		ContentFingerprint fingerprint = new ContentFingerprint();
+		int start = 0;
+		if (ignored != null) {
+			Matcher matcher = ignored.matcher(text);
+			while (matcher.find()) {
+				fingerprint.update(text, start, matcher.start());
+				start = matcher.end();
+			}
+		}
+		fingerprint.update(text, start, text.length());
+		return fingerprint.finish();
+	}
+
+	/**
+	 * Digest the chars in [start, end) as UTF-16 code units
+	 */
+	public void update(CharSequence text, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (position == BUFFER_SIZE) {
+				flush();
+			}
+			char c = text.charAt(i);
+			buffer[position++] = (byte) (c >>> 8);
+			buffer[position++] = (byte) c;
+		}
+	}
+
+	/**
+	 * Digest a whole field, prefixed with its length so that consecutive
+	 * fields cannot be confused by shifting their boundaries (null fields
+	 * are digested as empty ones)
+	 */
+	public void updateField(String field) {
+		String value = field != null ? field : "";
+		String prefix = value.length() + ":";
+		update(prefix, 0, prefix.length());
+		update(value, 0, value.length());
+	}
+
+	public String finish() {
+		flush();
+		byte[] hash = digest.digest();
+		char[] hex = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			hex[i * 2] = HEX_DIGITS[(hash[i] >>> 4) & 0xF];
+			hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	private void flush() {
+		digest.update(buffer, 0, position);
+		position = 0;
+	}
+}
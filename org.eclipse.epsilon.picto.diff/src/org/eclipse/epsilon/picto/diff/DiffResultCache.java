@@ -0,0 +1,287 @@
+package org.eclipse.epsilon.picto.diff;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.epsilon.picto.ContentPromise;
+import org.eclipse.epsilon.picto.StaticContentPromise;
+import org.eclipse.epsilon.picto.ViewTree;
+import org.eclipse.epsilon.picto.diff.engines.DiffEngine;
+
+/**
+ * Disk-backed cache of diff results, keyed by the fingerprints of both
+ * compared (normalised) contents and by the id and version of the engine.
+ *
+ * Entries are written to a temporary file and then renamed, so concurrent
+ * readers (possibly in other processes sharing the directory) never see
+ * partial entries. The least recently used entries are evicted when the
+ * cache grows beyond its maximum size. Entry sizes and use order are kept
+ * in memory, loaded from the directory (by modification time, which reading
+ * an entry refreshes), so stores do not scan the directory unless another
+ * process (or cache instance) changed it since, as told by the modification
+ * time of the directory. Cache failures never make a diff fail, they count
+ * as misses
+ */
+public class DiffResultCache {
+
+	public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+	protected static final String ENTRY_EXTENSION = ".diff";
+	protected static final String TEMP_EXTENSION = ".tmp";
+	// temporary files older than this were left behind by dead processes
+	protected static final long STALE_TEMP_MILLIS = 60 * 60 * 1000;
+
+	protected final Path directory;
+	protected final long maxSize;
+	// size of each entry by key, access-ordered (least recently used first),
+	//   or null until loaded
+	protected Map<String, Long> index;
+	protected long size = 0;
+	// modification time of the directory once indexed, changed by other writers
+	protected FileTime indexedTime;
+	protected AtomicInteger hits = new AtomicInteger();
+	protected AtomicInteger misses = new AtomicInteger();
+
+	public DiffResultCache(File directory) {
+		this(directory, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param maxSize Maximum size of the cache entries, in bytes
+	 */
+	public DiffResultCache(File directory, long maxSize) {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException(
+					String.format("Diff cache size cannot be negative (was %d)", maxSize));
+		}
+		this.directory = directory.toPath();
+		this.maxSize = maxSize;
+	}
+
+	public String getKey(String viewName, String format, String oldFingerprint,
+			String newFingerprint, DiffEngine engine) {
+
+		ContentFingerprint key = new ContentFingerprint();
+		key.updateField(viewName);
+		key.updateField(format);
+		key.updateField(oldFingerprint);
+		key.updateField(newFingerprint);
+		key.updateField(engine.getClass().getName());
+		key.updateField(engine.getVersion());
+		return key.finish();
+	}
+
+	/**
+	 * Set a cached diff result as the content of a diff view
+	 *
+	 * @return Whether the result was found
+	 */
+	public boolean restore(String key, ViewTree diffView) {
+		Path entry = getEntry(key);
+		try {
+			String stored = new String(Files.readAllBytes(entry), StandardCharsets.UTF_8);
+			int separator = stored.indexOf('\n');
+			if (separator >= 0) {
+				// most recently used entries are the newest ones
+				Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+				touch(key);
+				diffView.setPromise(new StaticContentPromise(stored.substring(separator + 1)));
+				diffView.setFormat(stored.substring(0, separator));
+				hits.incrementAndGet();
+				return true;
+			}
+		}
+		catch (IOException e) {
+			// missing (or just evicted) entry
+		}
+		misses.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Wrap the promise set by a diff engine, so that its result is stored
+	 * when it is first evaluated
+	 */
+	public void record(String key, ViewTree diffView) {
+		diffView.setPromise(new RecordingPromise(key, diffView.getFormat(), diffView.getPromise()));
+	}
+
+	public void store(String key, String format, String content) {
+		Path temp = null;
+		try {
+			Files.createDirectories(directory);
+			refreshIndex();
+			byte[] bytes = (format + "\n" + content).getBytes(StandardCharsets.UTF_8);
+			temp = Files.createTempFile(directory, key, TEMP_EXTENSION);
+			Files.write(temp, bytes);
+			try {
+				Files.move(temp, getEntry(key), StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, getEntry(key), StandardCopyOption.REPLACE_EXISTING);
+			}
+			temp = null;
+			add(key, bytes.length);
+		}
+		catch (IOException e) {
+			// the result is simply not cached
+		}
+		finally {
+			if (temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				}
+				catch (IOException e) {
+					// removed as stale later on
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add a stored entry to the index, and remove the least recently used
+	 * entries until the cache fits its maximum size
+	 */
+	protected synchronized void add(String key, long entrySize) throws IOException {
+		Long previous = index.put(key, entrySize);
+		if (previous != null) {
+			size -= previous;
+		}
+		size += entrySize;
+		Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+		while (size > maxSize && eldest.hasNext()) {
+			Map.Entry<String, Long> entry = eldest.next();
+			Files.deleteIfExists(getEntry(entry.getKey()));
+			size -= entry.getValue();
+			eldest.remove();
+		}
+		// changes from now on come from other writers
+		indexedTime = Files.getLastModifiedTime(directory);
+	}
+
+	/**
+	 * Mark an entry as the most recently used one
+	 */
+	protected synchronized void touch(String key) {
+		if (index != null) {
+			index.get(key);
+		}
+	}
+
+	/**
+	 * Scan the directory if not indexed yet or changed by other writers,
+	 * indexing its entries from the least recently used one and removing
+	 * stale temporary files
+	 */
+	protected synchronized void refreshIndex() throws IOException {
+		FileTime modified = Files.getLastModifiedTime(directory);
+		if (index != null && modified.equals(indexedTime)) {
+			return;
+		}
+		indexedTime = modified;
+		List<String> keys = new ArrayList<>();
+		List<BasicFileAttributes> attributes = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				try {
+					BasicFileAttributes fileAttributes =
+							Files.readAttributes(file, BasicFileAttributes.class);
+					if (name.endsWith(ENTRY_EXTENSION)) {
+						keys.add(name.substring(0, name.length() - ENTRY_EXTENSION.length()));
+						attributes.add(fileAttributes);
+					}
+					else if (name.endsWith(TEMP_EXTENSION) &&
+							now - fileAttributes.lastModifiedTime().toMillis() > STALE_TEMP_MILLIS) {
+						Files.deleteIfExists(file);
+					}
+				}
+				catch (NoSuchFileException e) {
+					// concurrently renamed or removed
+				}
+			}
+		}
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < keys.size(); i++) {
+			order.add(i);
+		}
+		order.sort(Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+		index = new LinkedHashMap<>(16, 0.75f, true);
+		size = 0;
+		for (int i : order) {
+			index.put(keys.get(i), attributes.get(i).size());
+			size += attributes.get(i).size();
+		}
+	}
+
+	/**
+	 * Evaluates the promise of a diff engine once, storing its result
+	 * (views are evaluated again every time they are shown)
+	 */
+	protected class RecordingPromise implements ContentPromise {
+
+		protected final String key;
+		protected final String format;
+		protected final ContentPromise promise;
+		protected String content;
+
+		public RecordingPromise(String key, String format, ContentPromise promise) {
+			this.key = key;
+			this.format = format;
+			this.promise = promise;
+		}
+
+		@Override
+		public synchronized String getContent() throws Exception {
+			if (content == null) {
+				content = promise.getContent();
+				store(key, format, content);
+			}
+			return content;
+		}
+	}
+
+	protected Path getEntry(String key) {
+		return directory.resolve(key + ENTRY_EXTENSION);
+	}
+
+	public File getDirectory() {
+		return directory.toFile();
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Size of the indexed entries, in bytes
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public int getHits() {
+		return hits.get();
+	}
+
+	public int getMisses() {
+		return misses.get();
+	}
+}
@@ -0,0 +1,24 @@
+package org.eclipse.epsilon.picto.diff;
+
+import org.eclipse.epsilon.picto.ContentPromise;
+
+/**
+ * Content promise able to provide a fingerprint of its content without
+ * evaluating it (e.g. a hash of the bytes of a file, or of a model element),
+ * and to tell whether its content is empty. Views with equal fingerprints
+ * are not evaluated to be compared
+ */
+public interface FingerprintedContentPromise extends ContentPromise {
+
+	/**
+	 * @return A fingerprint of the raw content, or null if not available.
+	 *   Promises with equal fingerprints are treated as having the same
+	 *   content, so fingerprints must only be equal for identical contents
+	 */
+	public String getFingerprint();
+
+	/**
+	 * @return Whether the content is empty, known without evaluating it
+	 */
+	public boolean isEmpty();
+}
@@ -0,0 +1,75 @@
+package org.eclipse.epsilon.picto.diff;
+
+import java.util.List;
+
+import org.eclipse.epsilon.picto.ContentPromise;
+import org.eclipse.epsilon.picto.PictoView;
+import org.eclipse.epsilon.picto.ViewContent;
+import org.eclipse.epsilon.picto.ViewRenderer;
+import org.eclipse.epsilon.picto.ViewTree;
+import org.jsoup.nodes.Entities;
+
+/**
+ * Diff of a pair of views that is only computed when its content is first
+ * requested (i.e. when the diff view is opened)
+ */
+public class LazyDiffContentPromise implements ContentPromise {
+
+	protected ViewTreeMerger merger;
+	protected ViewTree diffView;
+	protected ViewTree oldView;
+	protected ViewTree newView;
+	protected String content;
+
+	public LazyDiffContentPromise(ViewTreeMerger merger, ViewTree diffView,
+			ViewTree oldView, ViewTree newView) {
+		this.merger = merger;
+		this.diffView = diffView;
+		this.oldView = oldView;
+		this.newView = newView;
+	}
+
+	@Override
+	public synchronized String getContent() throws Exception {
+		if (content == null) {
+			ViewTree result = merger.diffView(oldView, newView);
+			// deferred changed/unchanged icon
+			diffView.setIcon(result.getIcon());
+			content = getHtml(result);
+			oldView = null;
+			newView = null;
+		}
+		return content;
+	}
+
+	public boolean isComputed() {
+		return content != null;
+	}
+
+	public String getFormat() {
+		return "html";
+	}
+
+	/**
+	 * The format of a lazy diff view must be fixed before the diff is
+	 * computed, so results in other formats (e.g. unchanged dot views, or
+	 * text messages) are converted to html as the side-by-side engine does
+	 */
+	protected String getHtml(ViewTree result) {
+		ViewContent resultContent = result.getContent();
+		if (resultContent == null || resultContent.getText() == null) {
+			return "";
+		}
+		if ("html".equals(resultContent.getFormat())) {
+			return resultContent.getText();
+		}
+		PictoView pictoView = new PictoView();
+		pictoView.setViewRenderer(new ViewRenderer(null));
+		List<ViewContent> contents = result.getContents(pictoView);
+		ViewContent finalContent = contents.isEmpty() ? resultContent : contents.get(contents.size() - 1);
+		if ("html".equals(finalContent.getFormat()) || "svg".equals(finalContent.getFormat())) {
+			return finalContent.getText();
+		}
+		return "<html><body><pre>" + Entities.escape(finalContent.getText()) + "</pre></body></html>";
+	}
+}
@@ -1,5 +1,6 @@
 package org.eclipse.epsilon.picto.diff;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -8,7 +9,13 @@ import java.nio.file.Paths;
 
 import org.apache.commons.io.IOUtils;
 import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.epsilon.picto.diff.engines.DiffEngineExtensionPointManager;
+import org.eclipse.epsilon.picto.diff.engines.DiffEngineRegistry;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderPool;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderer;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
@@ -18,6 +25,8 @@ public class PictoDiffPlugin extends AbstractUIPlugin {
 	// The plug-in ID
 		public static final String PLUGIN_ID = "org.eclipse.epsilon.picto.diff";
 
+		public static final String DIFF_CACHE_FOLDER = "diffCache";
+
 		// The shared instance
 		private static PictoDiffPlugin plugin;
 		
@@ -35,6 +44,16 @@ public class PictoDiffPlugin extends AbstractUIPlugin {
 		public void start(BundleContext context) throws Exception {
 			super.start(context);
 			plugin = this;
+			new DiffEngineExtensionPointManager().contributeTo(DiffEngineRegistry.getDefault());
+			if (DotRenderer.isWarmUpEnabled()) {
+				try {
+					// returns right away, the graphs are rendered in the background
+					DotRenderer.getDefault().warmUp(DotRenderPool.getDefault());
+				}
+				catch (RuntimeException e) {
+					logWarning("Cannot warm up the graph renderer", e);
+				}
+			}
 		}
 
 		/*
@@ -43,6 +62,7 @@ public class PictoDiffPlugin extends AbstractUIPlugin {
 		 */
 		@Override
 		public void stop(BundleContext context) throws Exception {
+			DotRenderer.shutdownShared();
 			plugin = null;
 			super.stop(context);
 		}
@@ -56,6 +76,22 @@ public class PictoDiffPlugin extends AbstractUIPlugin {
 			return plugin;
 		}
 		
+		/**
+		 * Directory where diff results are persisted between sessions
+		 */
+		public File getDiffCacheLocation() {
+			return getStateLocation().append(DIFF_CACHE_FOLDER).toFile();
+		}
+
+		/**
+		 * Log a warning in the plugin log, if the plugin is running
+		 */
+		public static void logWarning(String message, Throwable exception) {
+			if (plugin != null) {
+				plugin.getLog().log(new Status(IStatus.WARNING, PLUGIN_ID, message, exception));
+			}
+		}
+
 		public ImageDescriptor getImageDescriptor(String path) {
 			return imageDescriptorFromPlugin(PLUGIN_ID, path);
 		}
@@ -0,0 +1,105 @@
+package org.eclipse.epsilon.picto.diff;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.epsilon.picto.ViewTree;
+
+/**
+ * Bottom-up (Merkle-style) fingerprints of whole ViewTree subtrees, memoised
+ * per view so that each subtree is digested once per merge.
+ *
+ * Two levels are kept: shape fingerprints only cover the names and formats of
+ * the views, and are cheap to compute; content fingerprints also cover the
+ * (normalised) content of every view, which requires evaluating it. Content
+ * fingerprints should only be compared for subtrees of the same shape, where
+ * every view would be evaluated by the merge anyway
+ */
+public class SubtreeFingerprints {
+
+	// views are compared by identity, as their equality is not defined
+	protected Map<ViewTree, String> shapes =
+			Collections.synchronizedMap(new IdentityHashMap<>());
+	protected Map<ViewTree, String> contents =
+			Collections.synchronizedMap(new IdentityHashMap<>());
+	protected ViewContentMemo contentMemo;
+
+	public SubtreeFingerprints(ViewContentMemo contentMemo) {
+		this.contentMemo = contentMemo;
+	}
+
+	/**
+	 * Whether both subtrees have the same shape and the same contents
+	 */
+	public boolean subtreesEqual(ViewTree left, ViewTree right) {
+		return getShapeFingerprint(left).equals(getShapeFingerprint(right)) &&
+				getContentFingerprint(left).equals(getContentFingerprint(right));
+	}
+
+	public String getShapeFingerprint(ViewTree viewTree) {
+		return getFingerprint(viewTree, shapes, false);
+	}
+
+	public String getContentFingerprint(ViewTree viewTree) {
+		return getFingerprint(viewTree, contents, true);
+	}
+
+	/**
+	 * Post-order traversal with an explicit stack (subtrees can be very deep)
+	 */
+	private String getFingerprint(ViewTree viewTree, Map<ViewTree, String> memo,
+			boolean withContent) {
+
+		Deque<ViewTree> pending = new ArrayDeque<>();
+		pending.push(viewTree);
+		while (!pending.isEmpty()) {
+			ViewTree current = pending.peek();
+			if (memo.containsKey(current)) {
+				pending.pop();
+				continue;
+			}
+			boolean childrenDone = true;
+			for (ViewTree child : current.getChildren()) {
+				if (!memo.containsKey(child)) {
+					pending.push(child);
+					childrenDone = false;
+				}
+			}
+			if (childrenDone) {
+				pending.pop();
+				memo.put(current, digest(current, memo, withContent));
+			}
+		}
+		return memo.get(viewTree);
+	}
+
+	private String digest(ViewTree viewTree, Map<ViewTree, String> memo, boolean withContent) {
+		ContentFingerprint fingerprint = new ContentFingerprint();
+		fingerprint.updateField(viewTree.getName());
+		fingerprint.updateField(viewTree.getFormat());
+		if (withContent) {
+			fingerprint.updateField(getContentKey(viewTree));
+		}
+		for (ViewTree child : viewTree.getChildren()) {
+			fingerprint.updateField(memo.get(child));
+		}
+		return fingerprint.finish();
+	}
+
+	/**
+	 * Fingerprints supplied by the sources are used as they are; otherwise, the
+	 * fingerprint of the normalised content is used, marking empty contents
+	 * (which are diffed differently even if their normalised forms match)
+	 */
+	private String getContentKey(ViewTree viewTree) {
+		String supplied = contentMemo.getSuppliedFingerprint(viewTree);
+		if (supplied != null) {
+			return "s" + supplied;
+		}
+		boolean empty = contentMemo.getContent(viewTree).getText().isEmpty();
+		return (empty ? "e" : "c") + contentMemo.getFingerprint(viewTree);
+	}
+}
@@ -0,0 +1,124 @@
+package org.eclipse.epsilon.picto.diff;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.eclipse.epsilon.picto.ContentPromise;
+import org.eclipse.epsilon.picto.ViewContent;
+import org.eclipse.epsilon.picto.ViewTree;
+import org.eclipse.epsilon.picto.diff.normalisers.NormaliserChain;
+
+/**
+ * Memo of view contents shared by all the steps of a merge (emptiness
+ * checks, normalisation, diff engines), so that each content promise is
+ * evaluated at most once even when it is attached to several ViewTree copies
+ */
+public class ViewContentMemo {
+
+	// promises are compared by identity, as their equality is not defined
+	protected Map<ContentPromise, ViewContent> contents =
+			Collections.synchronizedMap(new IdentityHashMap<>());
+	protected Map<ContentPromise, String> fingerprints =
+			Collections.synchronizedMap(new IdentityHashMap<>());
+	protected AtomicInteger evaluations = new AtomicInteger();
+	protected NormaliserChain normaliserChain;
+	// source promises (e.g. EGL templates run by Picto) are not thread-safe,
+	//   so they are evaluated one at a time, even in parallel merges
+	protected final Object evaluationLock = new Object();
+
+	public ViewContentMemo() {
+		this(null);
+	}
+
+	/**
+	 * @param normaliserChain Normalisers whose ignored spans are skipped when
+	 *   computing fingerprints (i.e. fingerprints of the normalised contents)
+	 */
+	public ViewContentMemo(NormaliserChain normaliserChain) {
+		this.normaliserChain = normaliserChain;
+	}
+
+	/**
+	 * Content of a view, evaluating its promise (under a lock shared by all
+	 * the views of the memo) the first time it is requested
+	 */
+	public ViewContent getContent(ViewTree viewTree) {
+		ContentPromise promise = viewTree.getPromise();
+		if (promise == null) {
+			// manually set content, nothing to evaluate
+			return viewTree.getContent();
+		}
+		ViewContent content = contents.get(promise);
+		if (content == null) {
+			synchronized (evaluationLock) {
+				content = contents.get(promise);
+				if (content == null) {
+					if (viewTree.getCachedContent() == null) {
+						evaluations.incrementAndGet();
+					}
+					content = viewTree.getContent();
+					contents.put(promise, content);
+				}
+			}
+		}
+		return content;
+	}
+
+	/**
+	 * Fingerprint of the normalised content of a view, computed at most once
+	 * per promise
+	 */
+	public String getFingerprint(ViewTree viewTree) {
+		ContentPromise promise = viewTree.getPromise();
+		String fingerprint = promise != null ? fingerprints.get(promise) : null;
+		if (fingerprint == null) {
+			Pattern ignoredContent = normaliserChain != null ?
+					normaliserChain.getIgnoredContent(viewTree.getFormat()) : null;
+			fingerprint = ContentFingerprint.of(getContent(viewTree).getText(), ignoredContent);
+			if (promise != null) {
+				fingerprints.put(promise, fingerprint);
+			}
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Fingerprint supplied by the promise of a view without evaluating it
+	 *
+	 * @return The fingerprint, or null if the promise does not provide one
+	 */
+	public String getSuppliedFingerprint(ViewTree viewTree) {
+		if (viewTree.getPromise() instanceof FingerprintedContentPromise) {
+			return ((FingerprintedContentPromise) viewTree.getPromise()).getFingerprint();
+		}
+		return null;
+	}
+
+	/**
+	 * Attach the memoised content of a view to another one sharing its
+	 * promise, so that the latter does not evaluate the promise again
+	 */
+	public void shareContent(ViewTree source, ViewTree target) {
+		if (source.getPromise() != null && source.getPromise() == target.getPromise()) {
+			ViewContent content = contents.get(source.getPromise());
+			if (content != null) {
+				target.setContent(content);
+			}
+		}
+	}
+
+	/**
+	 * Number of content promises evaluated through this memo
+	 */
+	public int getEvaluations() {
+		return evaluations.get();
+	}
+
+	public void clear() {
+		contents.clear();
+		fingerprints.clear();
+	}
+}
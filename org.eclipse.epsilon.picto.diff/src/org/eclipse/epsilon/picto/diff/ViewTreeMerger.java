@@ -1,29 +1,47 @@
 package org.eclipse.epsilon.picto.diff;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
+import org.eclipse.epsilon.picto.ContentPromise;
 import org.eclipse.epsilon.picto.StaticContentPromise;
 import org.eclipse.epsilon.picto.ViewContent;
 import org.eclipse.epsilon.picto.ViewTree;
 import org.eclipse.epsilon.picto.diff.engines.DiffEngine;
 import org.eclipse.epsilon.picto.diff.engines.DiffEngineFactory;
-import org.eclipse.epsilon.picto.diff.engines.csv.CsvDiffEngineFactory;
-import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngineFactory;
-import org.eclipse.epsilon.picto.diff.engines.dummy.DummyDiffEngineFactory;
-import org.eclipse.epsilon.picto.diff.engines.html.HtmlDiffEngineFactory;
-import org.eclipse.epsilon.picto.diff.engines.sidebyside.SideBySideDiffEngineFactory;
+import org.eclipse.epsilon.picto.diff.engines.DiffEngineRegistry;
+import org.eclipse.epsilon.picto.diff.normalisers.NormaliserChain;
 
 public class ViewTreeMerger {
 
-	static final List<DiffEngineFactory> DIFF_ENGINE_FACTORIES =
-			Arrays.asList(
-					new CsvDiffEngineFactory(),
-					new HtmlDiffEngineFactory(),
-					new DotDiffEngineFactory(),
-					new HtmlDiffEngineFactory(),
-					new SideBySideDiffEngineFactory());
+	protected DiffEngineRegistry engineRegistry = DiffEngineRegistry.getDefault();
+	protected DiffEngineFactory manualEngineFactory;
+	protected int parallelism = 1;
+	protected boolean lazy = false;
+	protected boolean deferIcons = true;
+	protected boolean iterative = false;
+	protected boolean skipUnchangedSubtrees = true;
+	protected DiffResultCache resultCache;
+	protected Map<String, String> engineParameters = Collections.emptyMap();
+	protected NormaliserChain normaliserChain = NormaliserChain.createDefault();
+	protected ViewContentMemo contentMemo = new ViewContentMemo(normaliserChain);
+	protected SubtreeFingerprints subtreeFingerprints = new SubtreeFingerprints(contentMemo);
+
+	public ViewTreeMerger() {
+		this(null);
+	}
+
+	public ViewTreeMerger(String manualDiffEngine) {
+		this.manualEngineFactory = engineRegistry.getNamedFactory(manualDiffEngine);
+	}
 
 	public static ViewTree diffMerge(ViewTree oldTree, ViewTree newTree) throws Exception {
 		return diffMerge(oldTree, newTree, null);
@@ -32,62 +50,418 @@ public class ViewTreeMerger {
 	public static ViewTree diffMerge(ViewTree oldTree, ViewTree newTree,
 			String manualDiffEngine) throws Exception {
 
+		return new ViewTreeMerger(manualDiffEngine).merge(oldTree, newTree);
+	}
+
+	/**
+	 * Number of threads used to diff independent subtrees. With the default
+	 * value (1) the merge is performed sequentially on the calling thread.
+	 * The content promises of the compared trees are still evaluated one at
+	 * a time (they are not thread-safe), so only fingerprinting, normalising
+	 * and diffing the evaluated contents run in parallel
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(
+					String.format("Merge parallelism must be at least 1 (was %d)", parallelism));
+		}
+		this.parallelism = parallelism;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Only used in sequential merges. If iterative, subtrees are traversed
+	 * with an explicit stack instead of recursive calls, so that very deep
+	 * trees cannot overflow the call stack
+	 */
+	public void setIterative(boolean iterative) {
+		this.iterative = iterative;
+	}
+
+	public boolean isIterative() {
+		return iterative;
+	}
+
+	/**
+	 * If enabled, matched subtrees with the same structure and contents
+	 * (according to their bottom-up fingerprints) are emitted as unchanged
+	 * without merging or diffing their children. Not used in lazy merges
+	 * with deferred icons, where fingerprinting the subtrees would evaluate
+	 * the contents the merge is meant to defer
+	 */
+	public void setSkipUnchangedSubtrees(boolean skipUnchangedSubtrees) {
+		this.skipUnchangedSubtrees = skipUnchangedSubtrees;
+	}
+
+	public boolean isSkipUnchangedSubtrees() {
+		return skipUnchangedSubtrees;
+	}
+
+	/**
+	 * Cache where the results of the diff engines are persisted and looked
+	 * up (null, the default, disables caching)
+	 */
+	public void setResultCache(DiffResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+
+	public DiffResultCache getResultCache() {
+		return resultCache;
+	}
+
+	/**
+	 * Settings passed to the (non-stateless) diff engines before diffing
+	 */
+	public void setEngineParameters(Map<String, String> engineParameters) {
+		this.engineParameters = engineParameters;
+	}
+
+	public Map<String, String> getEngineParameters() {
+		return engineParameters;
+	}
+
+	public void setEngineRegistry(DiffEngineRegistry engineRegistry) {
+		this.engineRegistry = engineRegistry;
+	}
+
+	public DiffEngineRegistry getEngineRegistry() {
+		return engineRegistry;
+	}
+
+	/**
+	 * In lazy mode, the comparison of each matched pair of views (emptiness
+	 * and equality checks, diff engine selection and execution) is delayed
+	 * until the content of the corresponding diff view is first requested
+	 */
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	/**
+	 * Only used in lazy mode. If icons are not deferred, the changed/unchanged
+	 * icon of every diff view is computed during the merge (which requires
+	 * the content of both versions), and only the diff engines are delayed
+	 */
+	public void setDeferIcons(boolean deferIcons) {
+		this.deferIcons = deferIcons;
+	}
+
+	public boolean isDeferIcons() {
+		return deferIcons;
+	}
+
+	/**
+	 * Normalisers applied to the contents before comparing them
+	 */
+	public void setNormaliserChain(NormaliserChain normaliserChain) {
+		this.normaliserChain = normaliserChain;
+	}
+
+	public NormaliserChain getNormaliserChain() {
+		return normaliserChain;
+	}
+
+	/**
+	 * Number of content promises of the compared trees evaluated during the
+	 * last merge (including lazy diffs computed afterwards)
+	 */
+	public int getContentEvaluations() {
+		return contentMemo.getEvaluations();
+	}
+
+	public ViewTree merge(ViewTree oldTree, ViewTree newTree) throws Exception {
+		contentMemo = new ViewContentMemo(normaliserChain);
+		subtreeFingerprints = new SubtreeFingerprints(contentMemo);
 		ViewTree diffView = new ViewTree();
-		diffMerge(diffView, Arrays.asList(""),	oldTree, newTree,
-				getDiffEngineFactory(manualDiffEngine));
+		// compare roots of the viewtrees
+		diff(diffView, oldTree, newTree);
+		ViewPair roots = new ViewPair(diffView, oldTree, newTree);
+		if (parallelism > 1) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(new SubtreeDiffTask(roots, false));
+			}
+			catch (SubtreeDiffException e) {
+				throw e.getOriginalException();
+			}
+			finally {
+				pool.shutdown();
+			}
+		}
+		else if (iterative) {
+			mergeIteratively(roots);
+		}
+		else {
+			for (ViewPair pair : mergeSubtree(roots)) {
+				diffSubtree(pair);
+			}
+		}
 		return diffView;
 	}
 
-	private static void diffMerge(ViewTree mergedView, List<String> currentPath,
-			ViewTree oldTree, ViewTree newTree, DiffEngineFactory engineFactory) throws Exception {
+	/**
+	 * Merge the children of an already diffed pair of views, copying them at
+	 * once if both subtrees are unchanged
+	 *
+	 * @return The matched children still to be diffed, in order
+	 */
+	private List<ViewPair> mergeSubtree(ViewPair pair) {
+		if (skipUnchangedSubtrees && (!lazy || !deferIcons) &&
+				subtreeFingerprints.subtreesEqual(pair.oldView, pair.newView)) {
+			copyUnchangedChildren(pair);
+			return Collections.emptyList();
+		}
+		return mergeChildren(pair);
+	}
 
-		if (currentPath.size() == 1) {
-			// compare roots of the viewtrees
-			diff(mergedView, oldTree, newTree, engineFactory);
+	/**
+	 * Copy the children of two equal subtrees. Their children have the same
+	 * names in the same order, so they are paired by position (just like the
+	 * name-based matching would do), and their contents are known to be
+	 * equal, so they get the diff result of equal views without diffing them
+	 */
+	private void copyUnchangedChildren(ViewPair parent) {
+		Deque<ViewPair> pending = new ArrayDeque<>();
+		pending.push(parent);
+		while (!pending.isEmpty()) {
+			ViewPair pair = pending.pop();
+			List<ViewTree> newChildren = pair.newView.getChildren();
+			int index = 0;
+			for (ViewTree oldChild : pair.oldView.getChildren()) {
+				ViewPair childPair = new ViewPair(copy(oldChild), oldChild, newChildren.get(index++));
+				pair.diffView.getChildren().add(childPair.diffView);
+				setEqualContents(childPair.diffView, childPair.oldView, childPair.newView);
+				if (!oldChild.getChildren().isEmpty()) {
+					pending.push(childPair);
+				}
+			}
 		}
+	}
 
-		ViewTree currentOld = oldTree.forPath(currentPath);
-		ViewTree currentNew = newTree.forPath(currentPath);
-		List<ViewTree> remainingNewChildren = new ArrayList<>(currentNew.getChildren());
+	/**
+	 * Merge the children of a matched pair of views. Deleted and added children
+	 * are copied with their whole subtrees, while matched ones get an empty diff
+	 * view that is appended before being computed, so that every traversal
+	 * strategy (recursive, iterative or parallel) produces the same child order
+	 *
+	 * @return The matched children still to be diffed, in order
+	 */
+	private List<ViewPair> mergeChildren(ViewPair parent) {
+		List<ViewTree> newChildren = parent.newView.getChildren();
+		Map<String, Deque<Integer>> newChildrenIndex = indexByName(newChildren);
+		boolean[] matchedNewChildren = new boolean[newChildren.size()];
+		List<ViewPair> matchedPairs = new ArrayList<>();
 
-		for (ViewTree oldChild : currentOld.getChildren()) {
-			ViewTree counterpart = null;
-			for (ViewTree newChild : remainingNewChildren) {
-				if (oldChild.getName().equals(newChild.getName())) {
-					counterpart = newChild;
-					remainingNewChildren.remove(counterpart);
-					ViewTree diffView = copy(oldChild);
-					diff(diffView, oldChild, counterpart, engineFactory);
-					if (!oldChild.getChildren().isEmpty()) {
-						List<String> newPath = new ArrayList<>(currentPath);
-						newPath.add(oldChild.getName());
-						diffMerge(diffView, newPath, oldTree, newTree, engineFactory);
-					}
-					mergedView.getChildren().add(diffView);
-					break;
-				}
+		for (ViewTree oldChild : parent.oldView.getChildren()) {
+			Deque<Integer> candidates = newChildrenIndex.get(oldChild.getName());
+			if (candidates != null && !candidates.isEmpty()) {
+				int counterpartIndex = candidates.poll();
+				matchedNewChildren[counterpartIndex] = true;
+				ViewTree diffView = copy(oldChild);
+				parent.diffView.getChildren().add(diffView);
+				matchedPairs.add(new ViewPair(diffView, oldChild, newChildren.get(counterpartIndex)));
 			}
-			if (counterpart == null) {
+			else {
 				// deleted elements
 				ViewTree deletedView = copy(oldChild);
 				deletedView.setIcon("pdiff-deleted");
 				copyChildrenWithIcon(deletedView, oldChild.getChildren(), "pdiff-deleted");
-				mergedView.getChildren().add(deletedView);
+				parent.diffView.getChildren().add(deletedView);
 			}
 		}
 
 		// any remaining children is a new element
-		copyChildrenWithIcon(mergedView, remainingNewChildren, "pdiff-added");
+		List<ViewTree> remainingNewChildren = new ArrayList<>();
+		for (int i = 0; i < newChildren.size(); i++) {
+			if (!matchedNewChildren[i]) {
+				remainingNewChildren.add(newChildren.get(i));
+			}
+		}
+		copyChildrenWithIcon(parent.diffView, remainingNewChildren, "pdiff-added");
+
+		return matchedPairs;
+	}
+
+	/**
+	 * Diff a matched pair of views and then merge their children
+	 */
+	private void diffSubtree(ViewPair pair) throws Exception {
+		diffPair(pair);
+		if (!pair.oldView.getChildren().isEmpty()) {
+			for (ViewPair childPair : mergeSubtree(pair)) {
+				diffSubtree(childPair);
+			}
+		}
+	}
+
+	/**
+	 * Depth-first merge driven by an explicit stack instead of recursion.
+	 * Pairs are visited in the same (pre-)order as the recursive merge
+	 */
+	private void mergeIteratively(ViewPair roots) throws Exception {
+		Deque<ViewPair> pending = new ArrayDeque<>();
+		pushReversed(pending, mergeSubtree(roots));
+		while (!pending.isEmpty()) {
+			ViewPair pair = pending.pop();
+			diffPair(pair);
+			if (!pair.oldView.getChildren().isEmpty()) {
+				pushReversed(pending, mergeSubtree(pair));
+			}
+		}
+	}
+
+	private static void pushReversed(Deque<ViewPair> stack, List<ViewPair> pairs) {
+		for (int i = pairs.size() - 1; i >= 0; i--) {
+			stack.push(pairs.get(i));
+		}
+	}
+
+	/**
+	 * Diff a matched pair of views (children are merged separately)
+	 */
+	private void diffPair(ViewPair pair) throws Exception {
+		if (lazy) {
+			if (!deferIcons) {
+				pair.diffView.setIcon(
+						getDiffIcon(pair.oldView, pair.newView, pair.diffView.getIcon()));
+			}
+			LazyDiffContentPromise promise =
+					new LazyDiffContentPromise(this, pair.diffView, pair.oldView, pair.newView);
+			pair.diffView.setPromise(promise);
+			pair.diffView.setFormat(promise.getFormat());
+		}
+		else {
+			diff(pair.diffView, pair.oldView, pair.newView);
+		}
+	}
+
+	/**
+	 * A matched pair of views, together with the diff view holding the result
+	 * of their comparison
+	 */
+	private static class ViewPair {
+
+		private final ViewTree diffView;
+		private final ViewTree oldView;
+		private final ViewTree newView;
+
+		public ViewPair(ViewTree diffView, ViewTree oldView, ViewTree newView) {
+			this.diffView = diffView;
+			this.oldView = oldView;
+			this.newView = newView;
+		}
+	}
+
+	/**
+	 * Fork/join unit of a parallel merge: diffs one matched pair of views
+	 * (unless it is the already compared pair of roots) and forks the
+	 * diffs of their matched children
+	 */
+	private class SubtreeDiffTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ViewPair pair;
+		private final boolean diffPair;
+
+		public SubtreeDiffTask(ViewPair pair, boolean diffPair) {
+			this.pair = pair;
+			this.diffPair = diffPair;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				if (diffPair) {
+					diffPair(pair);
+				}
+				if (!pair.oldView.getChildren().isEmpty()) {
+					List<SubtreeDiffTask> subtreeTasks = new ArrayList<>();
+					for (ViewPair childPair : mergeSubtree(pair)) {
+						subtreeTasks.add(new SubtreeDiffTask(childPair, true));
+					}
+					ForkJoinTask.invokeAll(subtreeTasks);
+				}
+			}
+			catch (SubtreeDiffException e) {
+				throw e;
+			}
+			catch (Exception e) {
+				throw new SubtreeDiffException(e);
+			}
+		}
+	}
+
+	/**
+	 * Carries checked exceptions raised inside fork/join tasks
+	 */
+	private static class SubtreeDiffException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		public SubtreeDiffException(Throwable cause) {
+			super(cause);
+		}
+
+		/**
+		 * The fork/join framework may wrap the exception again when it crosses
+		 * threads, so the whole cause chain is unwrapped here
+		 */
+		public Exception getOriginalException() {
+			Throwable cause = this;
+			while (cause instanceof SubtreeDiffException && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof Exception) {
+				return (Exception) cause;
+			}
+			return this;
+		}
+	}
+
+	/**
+	 * Index the positions of a list of siblings by name. Siblings sharing a
+	 * name keep their relative order, so that they are matched in order of
+	 * appearance (i.e. the n-th old duplicate is paired with the n-th new one)
+	 */
+	private static Map<String, Deque<Integer>> indexByName(List<ViewTree> siblings) {
+		Map<String, Deque<Integer>> index = new HashMap<>();
+		for (int i = 0; i < siblings.size(); i++) {
+			index.computeIfAbsent(siblings.get(i).getName(), name -> new ArrayDeque<>()).add(i);
+		}
+		return index;
 	}
 
+	/**
+	 * Copy whole subtrees with the given icon. An explicit stack is used, as
+	 * added or deleted subtrees can be as deep as the compared trees
+	 */
 	private static void copyChildrenWithIcon(ViewTree newView,
 			List<ViewTree> copiedChildren, String icon) {
-		
-		for (ViewTree copiedChild : copiedChildren) {
-			ViewTree newChild = copy(copiedChild);
-			newChild.setIcon(icon);
-			newView.getChildren().add(newChild);
-			copyChildrenWithIcon(newChild, copiedChild.getChildren(), icon);
+
+		// copied views, and the children that still have to be copied into them
+		Deque<ViewTree> targets = new ArrayDeque<>();
+		Deque<List<ViewTree>> sources = new ArrayDeque<>();
+		targets.push(newView);
+		sources.push(copiedChildren);
+		while (!targets.isEmpty()) {
+			ViewTree target = targets.pop();
+			for (ViewTree copiedChild : sources.pop()) {
+				ViewTree newChild = copy(copiedChild);
+				newChild.setIcon(icon);
+				target.getChildren().add(newChild);
+				if (!copiedChild.getChildren().isEmpty()) {
+					targets.push(newChild);
+					sources.push(copiedChild.getChildren());
+				}
+			}
 		}
 	}
 
@@ -136,14 +510,35 @@ public class ViewTreeMerger {
 		return copy;
 	}
 
-	private static void diff(ViewTree diffView, ViewTree oldView, ViewTree newView,
-			DiffEngineFactory manualEngineFactory) throws Exception {
+	/**
+	 * Diff a single pair of views (children are not merged)
+	 *
+	 * @return A copy of the old view holding the diff results
+	 */
+	ViewTree diffView(ViewTree oldView, ViewTree newView) throws Exception {
+		ViewTree diffView = copy(oldView);
+		diff(diffView, oldView, newView);
+		return diffView;
+	}
+
+	/**
+	 * Icon that the diff of both views would get, computed without running
+	 * any diff engine
+	 */
+	private String getDiffIcon(ViewTree oldView, ViewTree newView, String defaultIcon) throws Exception {
+		if (isContentEmpty(oldView) || isContentEmpty(newView)) {
+			return defaultIcon;
+		}
+		if (suppliedFingerprintsMatch(oldView, newView) || contentEquals(oldView, newView)) {
+			return "pdiff-unchanged";
+		}
+		return "pdiff-changed";
+	}
+
+	private void diff(ViewTree diffView, ViewTree oldView, ViewTree newView) throws Exception {
 
 		if (isContentEmpty(oldView) && isContentEmpty(newView)) {
-			if (!oldView.getName().equals("") && !newView.getName().equals("")) {
-				diffView.setPromise(new StaticContentPromise(""));
-				diffView.setFormat("text");
-			}
+			setEqualContents(diffView, oldView, newView);
 		}
 		else if (isContentEmpty(oldView) || isContentEmpty(newView)) {
 			if (isContentEmpty(oldView)) {
@@ -155,38 +550,61 @@ public class ViewTreeMerger {
 			diffView.setFormat("text");
 		}
 		else {
-			ViewTree oldViewCopy = prepareForDiff(oldView);
-			ViewTree newViewCopy = prepareForDiff(newView);
-
-			if (contentEquals(oldViewCopy, newViewCopy)) {
-				diffView.setIcon("pdiff-unchanged");
+			// equal fingerprints supplied by the sources spare digesting the contents
+			if (suppliedFingerprintsMatch(oldView, newView) || contentEquals(oldView, newView)) {
+				setEqualContents(diffView, oldView, newView);
 			}
 			else {
 				diffView.setIcon("pdiff-changed");
-				DiffEngine engine = null;
-				if (manualEngineFactory != null) {
-					DiffEngine candidate = manualEngineFactory.createDiffEngine();
-					if (candidate.supports(oldViewCopy.getFormat())) {
-						engine = candidate;
-					}
+				DiffEngine engine =
+						engineRegistry.getEngine(oldView.getFormat(), manualEngineFactory);
+				// engine cannot be null (at least SideBySideDiffEngine supports it)
+				if (!engine.isStateless()) {
+					// before the cache key, the version might depend on the settings
+					engine.configure(engineParameters);
 				}
-				if (engine == null) {
-					for (DiffEngineFactory factory : DIFF_ENGINE_FACTORIES) {
-						DiffEngine candidate = factory.createDiffEngine();
-						if (candidate.supports(oldViewCopy.getFormat())) {
-							engine = candidate;
-							break;
-						}
+				String cacheKey = null;
+				if (resultCache != null) {
+					cacheKey = resultCache.getKey(diffView.getName(), oldView.getFormat(),
+							contentMemo.getFingerprint(oldView), contentMemo.getFingerprint(newView), engine);
+					if (resultCache.restore(cacheKey, diffView)) {
+						return;
 					}
 				}
-				// engine cannot be null (at least SideBySideDiffEngine supports it)
-				engine.diff(diffView, oldViewCopy, newViewCopy);
+				ContentPromise copiedPromise = diffView.getPromise();
+				engine.diff(diffView, prepareForDiff(oldView), prepareForDiff(newView));
+				// only results set as new promises can be cached (e.g. not the
+				//   linked contents built by the side by side engine)
+				if (cacheKey != null && diffView.getPromise() != copiedPromise) {
+					resultCache.record(cacheKey, diffView);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Diff result of two views with equal contents
+	 */
+	private void setEqualContents(ViewTree diffView, ViewTree oldView, ViewTree newView) {
+		if (isContentEmpty(oldView)) {
+			if (!oldView.getName().equals("") && !newView.getName().equals("")) {
+				diffView.setPromise(new StaticContentPromise(""));
+				diffView.setFormat("text");
 			}
 		}
+		else {
+			diffView.setIcon("pdiff-unchanged");
+			// the diff view shows the old view, reuse its evaluated content
+			contentMemo.shareContent(oldView, diffView);
+		}
 	}
 
-	private static boolean isContentEmpty(ViewTree viewTree) {
-		return viewTree.getContent().getText().equals("");
+	private boolean isContentEmpty(ViewTree viewTree) {
+		// sources supplying fingerprints tell empty contents apart as well
+		if (viewTree.getPromise() instanceof FingerprintedContentPromise) {
+			return ((FingerprintedContentPromise) viewTree.getPromise()).isEmpty();
+		}
+		return contentMemo.getContent(viewTree).getText().equals("");
 	}
 
 	/**
@@ -196,17 +614,11 @@ public class ViewTreeMerger {
 	 * Also, remove links with editors and viewTree paths that would not work if
 	 * still present in the merged tree
 	 */
-	private static ViewTree prepareForDiff(ViewTree viewTree) {
+	private ViewTree prepareForDiff(ViewTree viewTree) {
 		ViewTree copy = copy(viewTree);
-		ViewContent viewContent = copy.getContent();
+		ViewContent viewContent = contentMemo.getContent(viewTree);
 
-		String text = viewContent.getText();
-
-		String showViewPattern = "javascript:top.showView\\([^\"]*";
-		text = text.replaceAll(showViewPattern, "");
-
-		String showElementPattern = "javascript:top\\.showElement\\([^\"]*";
-		text = text.replaceAll(showElementPattern, "");
+		String text = normaliserChain.normalise(viewContent.getText(), viewTree.getFormat());
 
 		ViewContent viewContentCopy = new ViewContent(
 				viewContent.getFormat(), text, viewContent.getFile(),
@@ -217,25 +629,16 @@ public class ViewTreeMerger {
 		return copy;
 	}
 
-	private static boolean contentEquals(ViewTree left, ViewTree right) throws Exception {
-		return left.getContent().getText().equals(right.getContent().getText());
+	/**
+	 * Compare the fingerprints of the normalised contents of both views
+	 */
+	private boolean contentEquals(ViewTree left, ViewTree right) throws Exception {
+		return contentMemo.getFingerprint(left).equals(contentMemo.getFingerprint(right));
 	}
 
-	private static DiffEngineFactory getDiffEngineFactory(String diffEngineName) {
-		if (diffEngineName != null) {
-			if (diffEngineName.equalsIgnoreCase("dot")) {
-				return new DotDiffEngineFactory();
-			}
-			if (diffEngineName.equalsIgnoreCase("html")) {
-				return new HtmlDiffEngineFactory();
-			}
-			if (diffEngineName.equalsIgnoreCase("sidebyside")) {
-				return new SideBySideDiffEngineFactory();
-			}
-			if (diffEngineName.equalsIgnoreCase("dummy")) {
-				return new DummyDiffEngineFactory();
-			}
-		}
-		return null;
+	private boolean suppliedFingerprintsMatch(ViewTree left, ViewTree right) {
+		String leftFingerprint = contentMemo.getSuppliedFingerprint(left);
+		return leftFingerprint != null &&
+				leftFingerprint.equals(contentMemo.getSuppliedFingerprint(right));
 	}
 }
@@ -1,5 +1,7 @@
 package org.eclipse.epsilon.picto.diff.engines;
 
+import java.util.Map;
+
 import org.eclipse.epsilon.picto.ViewTree;
 
 public interface DiffEngine {
@@ -7,4 +9,29 @@ public interface DiffEngine {
 	public boolean supports(String format);
 
 	public void diff(ViewTree diffView, ViewTree oldView, ViewTree newView) throws Exception;
+
+	/**
+	 * Settings given to the engine before diffing (e.g. the parameters of
+	 * a .pictodiff). Engines read the ones they know and ignore the rest.
+	 * Only called on engines that are not stateless
+	 */
+	public default void configure(Map<String, String> parameters) {
+	}
+
+	/**
+	 * Stateless engines keep no state between (or during) diffs, so a single
+	 * instance can be reused for all of them, even concurrently
+	 */
+	public default boolean isStateless() {
+		return false;
+	}
+
+	/**
+	 * Version of the results produced by this engine. Persisted diff results
+	 * are only reused for the same engine version, so it must change whenever
+	 * the output of the engine does
+	 */
+	public default String getVersion() {
+		return "1";
+	}
 }
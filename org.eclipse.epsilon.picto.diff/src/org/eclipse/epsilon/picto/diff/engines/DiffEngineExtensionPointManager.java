@@ -0,0 +1,31 @@
+package org.eclipse.epsilon.picto.diff.engines;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.epsilon.picto.diff.PictoDiffPlugin;
+
+/**
+ * Reads the diff engines contributed through the diffEngine extension point
+ */
+public class DiffEngineExtensionPointManager {
+
+	public static final String EXTENSION_POINT_ID = PictoDiffPlugin.PLUGIN_ID + ".diffEngine";
+
+	public void contributeTo(DiffEngineRegistry registry) {
+		if (Platform.getExtensionRegistry() == null) {
+			return;
+		}
+		for (IConfigurationElement element :
+				Platform.getExtensionRegistry().getConfigurationElementsFor(EXTENSION_POINT_ID)) {
+			try {
+				DiffEngineFactory factory =
+						(DiffEngineFactory) element.createExecutableExtension("class");
+				registry.addFactory(element.getAttribute("name"), factory);
+			}
+			catch (CoreException e) {
+				PictoDiffPlugin.getDefault().getLog().log(e.getStatus());
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package org.eclipse.epsilon.picto.diff.engines;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.epsilon.picto.diff.engines.csv.CsvDiffEngineFactory;
+import org.eclipse.epsilon.picto.diff.engines.dot.DotDiffEngineFactory;
+import org.eclipse.epsilon.picto.diff.engines.dummy.DummyDiffEngineFactory;
+import org.eclipse.epsilon.picto.diff.engines.html.HtmlDiffEngineFactory;
+import org.eclipse.epsilon.picto.diff.engines.sidebyside.SideBySideDiffEngineFactory;
+
+/**
+ * Available diff engines, and the cached choice of engine for each format.
+ *
+ * <p>Engines are probed in registration order, and the fallback engine
+ * (side by side, which supports any format) is used if none of them
+ * supports the format. Besides the built-in engines, factories can be
+ * contributed through the diffEngine extension point, or as a
+ * {@link ServiceLoader} service of {@link DiffEngineFactory}</p>
+ */
+public class DiffEngineRegistry {
+
+	private static DiffEngineRegistry defaultRegistry;
+
+	protected List<DiffEngineFactory> factories = new CopyOnWriteArrayList<>();
+	protected DiffEngineFactory fallbackFactory;
+	protected Map<String, DiffEngineFactory> namedFactories = new ConcurrentHashMap<>();
+
+	protected Map<String, Optional<DiffEngineFactory>> formatFactories = new ConcurrentHashMap<>();
+	protected Map<DiffEngineFactory, Map<String, Boolean>> supportedFormats = new ConcurrentHashMap<>();
+	protected Map<DiffEngineFactory, DiffEngine> statelessEngines = new ConcurrentHashMap<>();
+
+	public DiffEngineRegistry(DiffEngineFactory fallbackFactory) {
+		this.fallbackFactory = fallbackFactory;
+	}
+
+	public static synchronized DiffEngineRegistry getDefault() {
+		if (defaultRegistry == null) {
+			defaultRegistry = createDefault();
+		}
+		return defaultRegistry;
+	}
+
+	protected static DiffEngineRegistry createDefault() {
+		DiffEngineFactory sideBySide = new SideBySideDiffEngineFactory();
+		DiffEngineRegistry registry = new DiffEngineRegistry(sideBySide);
+		registry.addFactory("csv", new CsvDiffEngineFactory());
+		registry.addFactory("html", new HtmlDiffEngineFactory());
+		registry.addFactory("dot", new DotDiffEngineFactory());
+		registry.addNamedFactory("sidebyside", sideBySide);
+		registry.addNamedFactory("dummy", new DummyDiffEngineFactory());
+		for (DiffEngineFactory factory : ServiceLoader.load(DiffEngineFactory.class)) {
+			registry.addFactory(null, factory);
+		}
+		return registry;
+	}
+
+	/**
+	 * Register a factory that will be probed when looking for an engine
+	 *
+	 * @param name Name used to select the engine manually (optional)
+	 */
+	public void addFactory(String name, DiffEngineFactory factory) {
+		factories.add(factory);
+		addNamedFactory(name, factory);
+		formatFactories.clear();
+	}
+
+	/**
+	 * Register a factory that is only used when selected by name
+	 */
+	public void addNamedFactory(String name, DiffEngineFactory factory) {
+		if (name != null && !name.isEmpty()) {
+			namedFactories.put(name.toLowerCase(), factory);
+		}
+	}
+
+	public DiffEngineFactory getNamedFactory(String name) {
+		if (name == null) {
+			return null;
+		}
+		return namedFactories.get(name.toLowerCase());
+	}
+
+	/**
+	 * Get an engine for the format, preferring the provided factory (if any)
+	 * when it supports the format
+	 */
+	public DiffEngine getEngine(String format, DiffEngineFactory preferredFactory) {
+		if (preferredFactory != null && supports(preferredFactory, format)) {
+			return createEngine(preferredFactory);
+		}
+		return getEngine(format);
+	}
+
+	public DiffEngine getEngine(String format) {
+		DiffEngineFactory factory = getFactory(format);
+		return factory != null ? createEngine(factory) : null;
+	}
+
+	/**
+	 * @return The first registered factory whose engines support the format,
+	 *   or the fallback factory if there is none
+	 */
+	public DiffEngineFactory getFactory(String format) {
+		return formatFactories.computeIfAbsent(String.valueOf(format), f -> {
+			for (DiffEngineFactory factory : factories) {
+				if (supports(factory, f)) {
+					return Optional.of(factory);
+				}
+			}
+			return Optional.ofNullable(fallbackFactory);
+		}).orElse(null);
+	}
+
+	protected boolean supports(DiffEngineFactory factory, String format) {
+		return supportedFormats
+				.computeIfAbsent(factory, f -> new ConcurrentHashMap<>())
+				.computeIfAbsent(String.valueOf(format), f -> createEngine(factory).supports(format));
+	}
+
+	/**
+	 * Create an engine, or reuse the existing one if it is stateless
+	 */
+	public DiffEngine createEngine(DiffEngineFactory factory) {
+		DiffEngine engine = statelessEngines.get(factory);
+		if (engine == null) {
+			engine = factory.createDiffEngine();
+			if (engine.isStateless()) {
+				statelessEngines.putIfAbsent(factory, engine);
+			}
+		}
+		return engine;
+	}
+}
@@ -0,0 +1,75 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+import static guru.nidi.graphviz.model.Factory.mutGraph;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import guru.nidi.graphviz.model.MutableGraph;
+
+/**
+ * Part of the temp graphs of a DotDiffEngine belonging to one connected
+ * component of the compared graphs, laid out and rendered on its own.
+ * Components without changes are not shown, so they never get one
+ */
+public class DotDiffComponent {
+
+	protected final int index;
+	protected final MutableGraph oldGraph = mutGraph().setDirected(true);
+	protected final MutableGraph newGraph = mutGraph().setDirected(true);
+	protected final Set<String> nodeNames = new HashSet<>();
+	protected int oldNodes = 0;
+	protected int newNodes = 0;
+	protected DotLayoutPolicy.Layout oldLayout;
+	protected DotLayoutPolicy.Layout newLayout;
+
+	public DotDiffComponent(int index) {
+		this.index = index;
+	}
+
+	/**
+	 * Position of the component in the diff page, from 0
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	public MutableGraph getOldGraph() {
+		return oldGraph;
+	}
+
+	public MutableGraph getNewGraph() {
+		return newGraph;
+	}
+
+	public boolean oldVersionEmpty() {
+		return oldNodes == 0;
+	}
+
+	public boolean newVersionEmpty() {
+		return newNodes == 0;
+	}
+
+	public int getOldNodes() {
+		return oldNodes;
+	}
+
+	public int getNewNodes() {
+		return newNodes;
+	}
+
+	/**
+	 * Whether a node of either version belongs to the component
+	 */
+	public boolean contains(String nodeName) {
+		return nodeNames.contains(nodeName);
+	}
+
+	public DotLayoutPolicy.Layout getOldLayout() {
+		return oldLayout;
+	}
+
+	public DotLayoutPolicy.Layout getNewLayout() {
+		return newLayout;
+	}
+}
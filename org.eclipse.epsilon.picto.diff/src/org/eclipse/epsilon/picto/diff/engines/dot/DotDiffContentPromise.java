@@ -1,6 +1,11 @@
 package org.eclipse.epsilon.picto.diff.engines.dot;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 import org.eclipse.epsilon.picto.ContentPromise;
 
@@ -42,11 +47,30 @@ public class DotDiffContentPromise implements ContentPromise {
 			engine.load();
 			engine.compare();
 
-			newVersionGraph = getFormattedGraph("Current Version",
-					engine.getNewVersion(Format.SVG), engine.newVersionEmpty());
+			if (engine.isPartitioned()) {
+				// a single page with the graphs of every changed component
+				content = MessageFormat.format(HTML_PAGE_FORMAT,
+						getComponentGraphs(), "", DotDiffEngine.getSvgEvents());
+				return content;
+			}
 
-			oldVersionGraph = getFormattedGraph("Previous Version",
-					engine.getOldVersion(Format.SVG), engine.oldVersionEmpty());
+			DotRenderPool renderPool = engine.getRenderPool();
+			if (renderPool != null) {
+				// both layouts are computed at once, and the page keeps its order
+				Future<String> newVersion = renderPool.submit(() -> engine.getNewVersion(Format.SVG));
+				Future<String> oldVersion = renderPool.submit(() -> engine.getOldVersion(Format.SVG));
+				newVersionGraph = getFormattedGraph(getName("Current Version", engine.getNewLayout()),
+						DotRenderPool.get(newVersion), engine.newVersionEmpty());
+				oldVersionGraph = getFormattedGraph(getName("Previous Version", engine.getOldLayout()),
+						DotRenderPool.get(oldVersion), engine.oldVersionEmpty());
+			}
+			else {
+				newVersionGraph = getFormattedGraph(getName("Current Version", engine.getNewLayout()),
+						engine.getNewVersion(Format.SVG), engine.newVersionEmpty());
+
+				oldVersionGraph = getFormattedGraph(getName("Previous Version", engine.getOldLayout()),
+						engine.getOldVersion(Format.SVG), engine.oldVersionEmpty());
+			}
 
 			content = MessageFormat.format(HTML_PAGE_FORMAT,
 					newVersionGraph, oldVersionGraph, DotDiffEngine.getSvgEvents());
@@ -54,6 +78,63 @@ public class DotDiffContentPromise implements ContentPromise {
 		return content;
 	}
 
+	/**
+	 * Render the versions of all the components, at once with the render
+	 * pool of the engine or one after the other without one, and lay them
+	 * out one component after another
+	 */
+	private String getComponentGraphs() throws Exception {
+		DotRenderPool renderPool = engine.getRenderPool();
+		List<DotDiffComponent> components = engine.getComponents();
+		List<Future<String>> renderings = new ArrayList<>();
+		for (DotDiffComponent component : components) {
+			renderings.add(component.newVersionEmpty() ? null :
+					render(renderPool, () -> engine.getNewVersion(component, Format.SVG)));
+			renderings.add(component.oldVersionEmpty() ? null :
+					render(renderPool, () -> engine.getOldVersion(component, Format.SVG)));
+		}
+		StringBuilder graphs = new StringBuilder();
+		for (DotDiffComponent component : components) {
+			String suffix = components.size() == 1 ? "" :
+				String.format(", component %d of %d", component.getIndex() + 1, components.size());
+			Future<String> newVersion = renderings.get(2 * component.getIndex());
+			Future<String> oldVersion = renderings.get(2 * component.getIndex() + 1);
+			graphs.append("<div>");
+			if (newVersion != null) {
+				graphs.append(getFormattedGraph(getName("Current Version" + suffix,
+						component.getNewLayout()), DotRenderPool.get(newVersion), false));
+			}
+			if (oldVersion != null) {
+				graphs.append(getFormattedGraph(getName("Previous Version" + suffix,
+						component.getOldLayout()), DotRenderPool.get(oldVersion), false));
+			}
+			graphs.append("</div>");
+		}
+		return graphs.toString();
+	}
+
+	/**
+	 * Submit a rendering to the pool, or render right away without one
+	 */
+	private static Future<String> render(DotRenderPool renderPool, Callable<String> rendering)
+			throws Exception {
+
+		if (renderPool == null) {
+			return CompletableFuture.completedFuture(rendering.call());
+		}
+		return renderPool.submit(rendering);
+	}
+
+	/**
+	 * Graphs not laid out with dot tell how they are shown instead
+	 */
+	private String getName(String name, DotLayoutPolicy.Layout layout) {
+		if (layout == null || layout.isDefault()) {
+			return name;
+		}
+		return name + " <small>(" + layout + ")</small>";
+	}
+
 	private String getFormattedGraph(String name, String graph, boolean emptyGraph) {
 		if (emptyGraph) {
 			return "";
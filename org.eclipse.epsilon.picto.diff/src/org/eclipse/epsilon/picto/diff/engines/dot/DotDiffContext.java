@@ -2,51 +2,164 @@ package org.eclipse.epsilon.picto.diff.engines.dot;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
-import guru.nidi.graphviz.model.MutableGraph;
-import guru.nidi.graphviz.parse.Parser;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.CompactDotGraph;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.DotStreamParser;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.StringPool;
 
 public class DotDiffContext {
 
-	protected InputStream ss;
-	protected InputStream ts;
-	boolean fromStream = false;
-
+	protected Reader sourceReader;
+	protected Reader targetReader;
+	// kept to read the graphs again when they are loaded more than once
 	protected String sourceDot;
 	protected String targetDot;
-	protected MutableGraph sourceGraph;
-	protected MutableGraph targetGraph;
+	protected Executor executor;
+
+	protected StringPool pool;
+	protected CompactDotGraph sourceGraph;
+	protected CompactDotGraph targetGraph;
 	
 	public DotDiffContext(String sourceDot, String targetDot) {
+		this(new StringReader(sourceDot), new StringReader(targetDot));
 		this.sourceDot = sourceDot;
 		this.targetDot = targetDot;
 	}
 
 	public DotDiffContext(InputStream sourceStream, InputStream targetStream) {
-		this.ss = sourceStream;
-		this.ts = targetStream;
-		fromStream = true;
+		this(new InputStreamReader(sourceStream, StandardCharsets.UTF_8),
+				new InputStreamReader(targetStream, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * The readers are closed once the graphs are loaded, so the graphs of
+	 * these contexts can only be loaded once
+	 */
+	public DotDiffContext(Reader sourceReader, Reader targetReader) {
+		this.sourceReader = sourceReader;
+		this.targetReader = targetReader;
 	}
 	
+	/**
+	 * Executor where the target graph is parsed while the source graph is
+	 * parsed on the calling thread. With the default value (null) both
+	 * graphs are parsed sequentially
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Parse the graphs concurrently on the common fork/join pool
+	 */
+	public void setConcurrent(boolean concurrent) {
+		setExecutor(concurrent ? ForkJoinPool.commonPool() : null);
+	}
+
+	/**
+	 * Parse both graphs as they are read, sharing a string pool. Graphs
+	 * given as strings are parsed again on every call (e.g. when a diff is
+	 * retried after a failure)
+	 *
+	 * @throws DotLoadException If any of the graphs cannot be loaded
+	 *     (when both fail, the target error is suppressed in the source one)
+	 * @throws IllegalStateException If the graphs were given as readers or
+	 *     streams and have already been read
+	 */
 	public boolean loadGraphs() throws IOException {
-		if (fromStream) {
-			sourceGraph = new Parser().read(ss);
-			targetGraph = new Parser().read(ts);
-			ss.close();
-			ts.close();
+		if (sourceReader == null) {
+			if (sourceDot == null) {
+				throw new IllegalStateException("The compared graphs have already been read");
+			}
+			sourceReader = new StringReader(sourceDot);
+			targetReader = new StringReader(targetDot);
 		}
-		else {
-			sourceGraph = new Parser().read(sourceDot);
-			targetGraph = new Parser().read(targetDot);
+		pool = new StringPool();
+		try (Reader source = sourceReader; Reader target = targetReader) {
+			sourceReader = null;
+			targetReader = null;
+			if (executor == null) {
+				sourceGraph = parse(source, pool, DotLoadException.PREVIOUS_VERSION);
+				targetGraph = parse(target, pool, DotLoadException.CURRENT_VERSION);
+			}
+			else {
+				loadConcurrently(source, target);
+			}
 		}
 		return true;
 	}
+
+	/**
+	 * The pool is not thread-safe, so the target graph gets a pool of its
+	 * own and is moved to the shared one once both graphs are parsed
+	 */
+	protected void loadConcurrently(Reader source, Reader target) throws IOException {
+		CompletableFuture<CompactDotGraph> targetFuture = CompletableFuture.supplyAsync(() -> {
+			try {
+				return parse(target, new StringPool(), DotLoadException.CURRENT_VERSION);
+			}
+			catch (DotLoadException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+
+		DotLoadException sourceError = null;
+		try {
+			sourceGraph = parse(source, pool, DotLoadException.PREVIOUS_VERSION);
+		}
+		catch (DotLoadException e) {
+			sourceError = e;
+		}
+		try {
+			targetGraph = targetFuture.join();
+		}
+		catch (CompletionException e) {
+			DotLoadException targetError = e.getCause() instanceof DotLoadException
+					? (DotLoadException) e.getCause()
+					: new DotLoadException(DotLoadException.CURRENT_VERSION, e.getCause());
+			if (sourceError == null) {
+				throw targetError;
+			}
+			sourceError.addSuppressed(targetError);
+		}
+		if (sourceError != null) {
+			throw sourceError;
+		}
+		targetGraph.changePool(pool);
+	}
+
+	protected CompactDotGraph parse(Reader reader, StringPool pool, String version)
+			throws DotLoadException {
+
+		try {
+			return new DotStreamParser(pool).parse(reader);
+		}
+		catch (IOException | RuntimeException e) {
+			throw new DotLoadException(version, e);
+		}
+	}
+
+	public StringPool getPool() {
+		return pool;
+	}
 	
-	public MutableGraph getSourceGraph() {
+	public CompactDotGraph getSourceGraph() {
 		return sourceGraph;
 	}
 	
-	public MutableGraph getTargetGraph() {
+	public CompactDotGraph getTargetGraph() {
 		return targetGraph;
 	}
 	
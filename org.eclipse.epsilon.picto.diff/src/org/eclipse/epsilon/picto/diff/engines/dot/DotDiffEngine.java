@@ -8,24 +8,34 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 import org.eclipse.epsilon.picto.StaticContentPromise;
 import org.eclipse.epsilon.picto.ViewTree;
 import org.eclipse.epsilon.picto.diff.PictoDiffPlugin;
 import org.eclipse.epsilon.picto.diff.engines.DiffEngine;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.AdjacencyIndex;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.CompactDotGraph;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.ComponentIndex;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.IntList;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.StringPool;
 import org.eclipse.epsilon.picto.diff.engines.dot.util.DotDiffUtil;
+import org.eclipse.epsilon.picto.diff.engines.dot.util.LinkedIdentitySet;
 import org.eclipse.epsilon.picto.diff.engines.dot.util.PictoDiffValidator;
 
 import guru.nidi.graphviz.engine.Format;
-import guru.nidi.graphviz.engine.Graphviz;
 import guru.nidi.graphviz.model.Link;
 import guru.nidi.graphviz.model.LinkSource;
 import guru.nidi.graphviz.model.LinkTarget;
@@ -42,26 +52,89 @@ public class DotDiffEngine implements DiffEngine {
 	private static final double GRAPH_SCALE = 1.3;
 
 	private enum ADD_MODE {ADDED, CHANGED, REMOVED, NORMAL};
+
+	public static final String CONTEXT_RADIUS_PARAMETER = "contextRadius";
+	public static final String CONTEXT_BUDGET_PARAMETER = "contextBudget";
+	// context radius reproducing the (implicit) context of earlier versions
+	public static final int IMPLICIT_CONTEXT = -1;
+	public static final int DEFAULT_CONTEXT_BUDGET = 200;
+	public static final String PARTITIONED_PARAMETER = "partitionComponents";
+	public static final String CONCURRENT_LOADING_PARAMETER = "concurrentLoading";
+	public static final String CONCURRENT_RENDERING_PARAMETER = "concurrentRendering";
+	public static final String RENDERER_PARAMETER = "renderer";
+
+	// states of the graph edges when comparing links
+	private static final byte EDGE_UNMATCHED = 0;
+	private static final byte EDGE_UNCHANGED = 1;
+	private static final byte EDGE_CHANGED = 2;
+	private static final byte EDGE_REMOVED = 3;
+
 	protected DotDiffContext context = null;
+	// executor used to load the compared graphs concurrently, or null
+	protected Executor loadExecutor = ForkJoinPool.commonPool();
+	// cache of rendered temp graphs, or null
+	protected DotRenderCache renderCache = DotRenderCache.getDefault();
+	// threads rendering both temp graphs concurrently, or null
+	protected DotRenderPool renderPool = DotRenderPool.getDefault();
+	// graphviz backend rendering the temp graphs
+	protected DotRenderer renderer = DotRenderer.getDefault();
+	// chooses the layout of each temp graph from its size
+	protected DotLayoutPolicy layoutPolicy = new DotLayoutPolicy();
+	protected DotLayoutPolicy.Layout oldLayout;
+	protected DotLayoutPolicy.Layout newLayout;
+	// whether the renderer runs dot, checked (starting the dot processes)
+	// only when a large graph is laid out, once per comparison
+	protected Boolean nativeRendering;
+	// hops of unchanged context around the changes, and maximum context nodes
+	protected int contextRadius = IMPLICIT_CONTEXT;
+	protected int contextBudget = DEFAULT_CONTEXT_BUDGET;
+	// whether each connected component is laid out on its own
+	protected boolean partitioned = false;
+	protected List<DotDiffComponent> components = Collections.emptyList();
 
 	protected MutableGraph source_temp;
 	protected MutableGraph target_temp;
 
+	// compared graphs, loaded by the context. Both share the same string
+	//   pool, so names and attributes are compared by id
+	protected StringPool pool;
+	protected CompactDotGraph source;
+	protected CompactDotGraph target;
+
+	// nodes and links added to the temp graphs
+	protected TempGraphRegistry sourceTempRegistry = new TempGraphRegistry();
+	protected TempGraphRegistry targetTempRegistry = new TempGraphRegistry();
+
 	protected PictoDiffValidator graphValidator = new PictoDiffValidator();
+
+	// comparison state, indexed by compact node and edge ids
+	protected int[] counterparts;
+	protected boolean[] addedTargetNodes;
+	protected boolean[] removedSourceNodes;
+	protected boolean[] changedSourceNodes;
+	protected byte[] sourceEdgeStates;
+	// counterpart of each changed source edge, or NONE if it was already
+	//   reported by a previous edge with the same name
+	protected int[] sourceEdgeCounterparts;
+	protected byte[] targetEdgeStates;
+	protected DotDiffResult result;
+	protected IntList changedSourceEdges = new IntList();
+	protected IntList changedTargetEdges = new IntList();
+	protected IntList removedSourceEdges = new IntList();
 	
-	protected Set<MutableNode> changedNodes = new HashSet<>();
-	protected Set<MutableNode> addedNodes = new HashSet<>();
-	protected Set<MutableNode> removedNodes = new HashSet<>();
+	// nodes and links are kept by identity: their hashes are deep (attributes
+	//   and links) and change when they are painted
+	protected Set<MutableNode> changedNodes = new LinkedIdentitySet<>();
+	protected Set<MutableNode> addedNodes = new LinkedIdentitySet<>();
+	protected Set<MutableNode> removedNodes = new LinkedIdentitySet<>();
 	
-	protected Map<MutableNode, Set<Link>> unchangedLinks = new HashMap<>();
-	protected Map<MutableNode, Set<Link>> addedLinks = new HashMap<>();
-	protected Map<MutableNode, Set<Link>> removedLinks = new HashMap<>();
-	protected Map<MutableNode, Set<Link>> changedLinks = new HashMap<>();
+	protected Map<MutableNode, Set<Link>> addedLinks = new IdentityHashMap<>();
+	protected Map<MutableNode, Set<Link>> removedLinks = new IdentityHashMap<>();
+	protected Map<MutableNode, Set<Link>> changedLinks = new IdentityHashMap<>();
 	
-	protected Map<MutableNode, Set<String>> addedAttrs = new HashMap<>();
-	protected Map<MutableNode, Set<String>> removedAttrs = new HashMap<>();
-	protected Map<MutableNode, Set<String>> changedAttrs = new HashMap<>();
-	protected Map<MutableNode, Set<String>> unchangedAttrs = new HashMap<>();
+	protected Map<MutableNode, Set<String>> addedAttrs = new IdentityHashMap<>();
+	protected Map<MutableNode, Set<String>> removedAttrs = new IdentityHashMap<>();
+	protected Map<MutableNode, Set<String>> changedAttrs = new IdentityHashMap<>();
 	
 	public static void main(String[] args) throws Exception {
 
@@ -129,277 +202,537 @@ public class DotDiffEngine implements DiffEngine {
 		this.context = context;
 	}
 
-	public boolean load() {
-		try {
-			if (context.loadGraphs()) {
-				source_temp = mutGraph();
-				source_temp.setDirected(true);
-				source_temp.graphAttrs().add(context.getSourceGraph().graphAttrs());
-				
-				target_temp = mutGraph();
-				target_temp.setDirected(true);
-				target_temp.graphAttrs().add(context.getTargetGraph().graphAttrs());
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
+	/**
+	 * Load the compared graphs, discarding the state of any previous
+	 * comparison (so that a failed diff can be computed again)
+	 *
+	 * @throws DotLoadException If any of the compared graphs cannot be loaded
+	 */
+	public boolean load() throws IOException {
+		if (!context.loadGraphs()) {
 			return false;
 		}
+		clearComparison();
+		pool = context.getPool();
+		source = context.getSourceGraph();
+		target = context.getTargetGraph();
+
+		source_temp = mutGraph();
+		source_temp.setDirected(true);
+		sourceTempRegistry.clear();
+		source.applyGraphAttributes(source_temp);
+		
+		target_temp = mutGraph();
+		target_temp.setDirected(true);
+		targetTempRegistry.clear();
+		target.applyGraphAttributes(target_temp);
 		return true;
 	}
 
+	private void clearComparison() {
+		changedNodes.clear();
+		addedNodes.clear();
+		removedNodes.clear();
+		addedLinks.clear();
+		removedLinks.clear();
+		changedLinks.clear();
+		addedAttrs.clear();
+		removedAttrs.clear();
+		changedAttrs.clear();
+		result = null;
+		oldLayout = null;
+		newLayout = null;
+		components = Collections.emptyList();
+		nativeRendering = null;
+	}
+
+	private boolean isNativeRendering() {
+		if (nativeRendering == null) {
+			nativeRendering = renderer.isNative();
+		}
+		return nativeRendering;
+	}
+
+	/**
+	 * Compare the loaded graphs without creating any graphviz element
+	 */
+	public DotDiffResult computeDiff() {
+		DotDiffResult.Builder builder = new DotDiffResult.Builder();
+		matchNodes();
+		detectAddedNodes(builder);
+		for (int node = 0; node < source.nodeCount(); node++) {
+			detectNodeChanges(node, builder);
+		}
+		result = builder.build();
+		return result;
+	}
+
+	/**
+	 * Compare the graphs and build the temp graphs highlighting their
+	 * differences, which are rendered by getOldVersion and getNewVersion.
+	 * Graphviz nodes and links are only handled for the elements that
+	 * change, and for the ones copied to the temp graphs
+	 */
 	public void compare() {
+		computeDiff();
 		processAddedNodes();
-		// compare attributes first to avoid introducing items
+		// process attributes first to avoid introducing items
 		//   as unmodified by mistake when processing node links
-		// also detects removed nodes
-		for (MutableNode n : getUnmutableSourceNodes()) {
-			compareNodeAttributes(n);
+		// also registers removed nodes
+		for (int node = 0; node < source.nodeCount(); node++) {
+			processNodeAttributes(node);
 		}
 		processRemovedNodes();
-		for (MutableNode n : getUnmutableSourceNodes()) {
-			compareNodeLinks(n);
+		for (int node = 0; node < source.nodeCount(); node++) {
+			processNodeLinks(node);
 		}
 		// add new links of newly added nodes (e.g. links where the source is
 		//   an added node). Done after the general comparison to be sure that
 		//   any other change over the already existing nodes is treated first
 		processAddedNodesLinks();
 
-		// include unchanged links between nodes of the previous version graph,
-		//     to improve the autolayout of the diagram (with these new links we
-		//     wish to obtain diagrams that resemble better the original ones
-		// this method only adds links between the existing nodes that have been
-		//     added due to the detected changes
-		includeExtraLinksInSourceTemp();
+		// with an explicit radius of 0, only the changed elements are shown
+		if (contextRadius != 0) {
+			if (contextRadius > 0) {
+				includeContext();
+			}
+
+			// include unchanged links between nodes of the previous version graph,
+			//     to improve the autolayout of the diagram (with these new links we
+			//     wish to obtain diagrams that resemble better the original ones
+			// this method only adds links between the existing nodes that have been
+			//     added due to the detected changes (or as context)
+			includeExtraLinksInSourceTemp();
+
+			// same thing, for the current version graph
+			includeExtraLinksInTargetTemp();
+		}
 
-		// same thing, for the current version graph
-		includeExtraLinksInTargetTemp();
+		if (partitioned) {
+			// before selecting the layout, which sets whole temp graph attributes
+			components = partitionTempGraphs();
+		}
+		oldLayout = selectLayout(source_temp, sourceTempRegistry);
+		newLayout = selectLayout(target_temp, targetTempRegistry);
 	}
 
-	private void includeExtraLinksInTargetTemp() {
-		for (MutableNode node_targetTemp : getAllNodes(target_temp)) {
-			MutableNode node_target =
-					findNode(node_targetTemp.name().value(), getUnmutableTargetNodes());
-			for (Link link : node_target.links()) {
-				MutableNode linkTarget = findLinkTarget(context.targetGraph, link);
-				MutableNode linkTarget_targetTemp = findNodeInTargetTemp(linkTarget);
-				if (linkTarget_targetTemp != null &&
-						findLink(target_temp,
-								node_targetTemp,
-								(String) link.attrs().get("name")) == null) {
-					Link newLink = link(target_temp,
-							node_targetTemp,
-							linkTarget_targetTemp,
-							link.from(), link.to());
-					copyLinkAttributes(newLink, link);
+	/**
+	 * Split the temp graphs by the connected components of the compared
+	 * graphs. Their clusters and links are shared with the temp graphs, and
+	 * components are ordered by their first node in the current version
+	 * temp graph (then the previous version one)
+	 */
+	private List<DotDiffComponent> partitionTempGraphs() {
+		ComponentIndex index = new ComponentIndex(source, target);
+		Map<Integer, DotDiffComponent> byRoot = new LinkedHashMap<>();
+		for (MutableGraph temp : Arrays.asList(target_temp, source_temp)) {
+			boolean previous = temp == source_temp;
+			for (MutableGraph cluster : temp.graphs()) {
+				DotDiffComponent component = getComponent(byRoot, index, cluster.name());
+				component.nodeNames.add(cluster.name());
+				if (previous) {
+					component.oldGraph.graphs().add(cluster);
+					component.oldNodes++;
+				}
+				else {
+					component.newGraph.graphs().add(cluster);
+					component.newNodes++;
+				}
+			}
+			// links belong to auxiliary root nodes named after their source
+			for (MutableNode node : temp.rootNodes()) {
+				DotDiffComponent component = getComponent(byRoot, index, node.name().value());
+				(previous ? component.oldGraph : component.newGraph).rootNodes().add(node);
+			}
+		}
+		List<DotDiffComponent> components = new ArrayList<>(byRoot.values());
+		for (DotDiffComponent component : components) {
+			source.applyGraphAttributes(component.oldGraph);
+			target.applyGraphAttributes(component.newGraph);
+			component.oldLayout = layoutPolicy.select(component.oldNodes,
+					DotLayoutPolicy.countEdges(component.oldGraph), this::isNativeRendering);
+			component.oldLayout.apply(component.oldGraph);
+			component.newLayout = layoutPolicy.select(component.newNodes,
+					DotLayoutPolicy.countEdges(component.newGraph), this::isNativeRendering);
+			component.newLayout.apply(component.newGraph);
+		}
+		return components;
+	}
+
+	private DotDiffComponent getComponent(Map<Integer, DotDiffComponent> byRoot,
+			ComponentIndex index, String nodeName) {
+		return byRoot.computeIfAbsent(index.getComponent(pool.find(nodeName)),
+				root -> new DotDiffComponent(byRoot.size()));
+	}
+
+	private DotLayoutPolicy.Layout selectLayout(MutableGraph temp, TempGraphRegistry registry) {
+		DotLayoutPolicy.Layout layout = layoutPolicy.select(registry.getNodeNames().length,
+				DotLayoutPolicy.countEdges(temp), this::isNativeRendering);
+		layout.apply(temp);
+		return layout;
+	}
+
+	private void matchNodes() {
+		counterparts = new int[source.nodeCount()];
+		for (int node = 0; node < source.nodeCount(); node++) {
+			counterparts[node] = target.findNode(source.getNodeName(node));
+		}
+		addedTargetNodes = new boolean[target.nodeCount()];
+		removedSourceNodes = new boolean[source.nodeCount()];
+		changedSourceNodes = new boolean[source.nodeCount()];
+		sourceEdgeStates = new byte[source.edgeCount()];
+		sourceEdgeCounterparts = new int[source.edgeCount()];
+		targetEdgeStates = new byte[target.edgeCount()];
+	}
+
+	private void detectAddedNodes(DotDiffResult.Builder builder) {
+		for (int node = 0; node < target.nodeCount(); node++) {
+			if (source.findNode(target.getNodeName(node)) == CompactDotGraph.NONE) {
+				addedTargetNodes[node] = true;
+				builder.addedNodes.add(pool.get(target.getNodeName(node)));
+				for (int edge = target.edgesStart(node); edge < target.edgesEnd(node); edge++) {
+					builder.addedEdges.add(getEdge(target, edge));
 				}
 			}
 		}
 	}
 
-	private void includeExtraLinksInSourceTemp() {
-		for (MutableNode node_sourceTemp : getAllNodes(source_temp)) {
-			MutableNode node_source =
-					findNode(node_sourceTemp, getUnmutableSourceNodes());
-			for (Link link : node_source.links()) {
-				MutableNode linkTarget = findLinkTarget(context.sourceGraph, link);
-				MutableNode linkTarget_sourceTemp = findNodeInSourceTemp(linkTarget);
-				if (linkTarget_sourceTemp != null &&
-						findLink(source_temp, node_sourceTemp,
-								(String) link.attrs().get("name")) == null) {
-					Link newLink = link(source_temp,
-							node_sourceTemp, linkTarget_sourceTemp,
-							link.from(), link.to());
-					copyLinkAttributes(newLink, link);
-					// mark link as deleted if the node is also marked as such
-					if (removedNodes.contains(node_source)) {
-						DotDiffUtil.paintDeleted(newLink);
-					}
+	/**
+	 * Detect the attribute and link changes of a node of the source graph
+	 */
+	private void detectNodeChanges(int left_node, DotDiffResult.Builder builder) {
+		String name = pool.get(source.getNodeName(left_node));
+		int right_node = counterparts[left_node];
+		if (right_node == CompactDotGraph.NONE) {
+			removedSourceNodes[left_node] = true;
+			builder.removedNodes.add(name);
+			for (int edge = source.edgesStart(left_node); edge < source.edgesEnd(left_node); edge++) {
+				builder.removedEdges.add(getEdge(source, edge));
+			}
+			return;
+		}
+
+		for (int attr = source.attributesStart(left_node);
+				attr < source.attributesEnd(left_node); attr++) {
+			int key = source.getAttributeKey(attr);
+			int correspond = target.findAttribute(right_node, key);
+			if (correspond == CompactDotGraph.NONE) {
+				builder.addAttribute(builder.removedAttributes, name, pool.get(key));
+			}
+			// values are interned, so equal values have the same id
+			else if (correspond != source.getAttributeValue(attr)) {
+				builder.addAttribute(builder.changedAttributes, name, pool.get(key));
+				changedSourceNodes[left_node] = true;
+			}
+		}
+		for (int attr = target.attributesStart(right_node);
+				attr < target.attributesEnd(right_node); attr++) {
+			int key = target.getAttributeKey(attr);
+			if (source.findAttribute(left_node, key) == CompactDotGraph.NONE) {
+				builder.addAttribute(builder.addedAttributes, name, pool.get(key));
+			}
+		}
+		if (changedSourceNodes[left_node]) {
+			builder.changedNodes.add(name);
+		}
+
+		for (int left_link = source.edgesStart(left_node);
+				left_link < source.edgesEnd(left_node); left_link++) {
+			int right_link = target.findEdge(right_node, source.getEdgeName(left_link));
+			sourceEdgeCounterparts[left_link] = CompactDotGraph.NONE;
+			if (right_link == CompactDotGraph.NONE) {
+				sourceEdgeStates[left_link] = EDGE_REMOVED;
+				builder.removedEdges.add(getEdge(source, left_link));
+			}
+			else if (!compareLink(left_link, right_link)) {
+				sourceEdgeStates[left_link] = EDGE_CHANGED;
+				// several source links may share a counterpart, which is only reported once
+				if (targetEdgeStates[right_link] != EDGE_CHANGED) {
+					sourceEdgeCounterparts[left_link] = right_link;
+					builder.changedEdges.add(getEdge(target, right_link));
+				}
+				targetEdgeStates[right_link] = EDGE_CHANGED;
+			}
+			else {
+				sourceEdgeStates[left_link] = EDGE_UNCHANGED;
+				if (targetEdgeStates[right_link] == EDGE_UNMATCHED) {
+					targetEdgeStates[right_link] = EDGE_UNCHANGED;
 				}
 			}
 		}
+		// each link of the right node not matched by a left link is an added one
+		for (int right_link = target.edgesStart(right_node);
+				right_link < target.edgesEnd(right_node); right_link++) {
+			if (targetEdgeStates[right_link] == EDGE_UNMATCHED) {
+				builder.addedEdges.add(getEdge(target, right_link));
+			}
+		}
+	}
+
+	private DotDiffResult.Edge getEdge(CompactDotGraph graph, int edge) {
+		int edgeTarget = graph.getEdgeTarget(edge);
+		return new DotDiffResult.Edge(
+				pool.get(graph.getNodeName(graph.getEdgeSource(edge))),
+				edgeTarget != CompactDotGraph.NONE ? pool.get(graph.getNodeName(edgeTarget)) : null,
+				pool.get(graph.getEdgeName(edge)),
+				pool.get(graph.getEdgeLabel(edge)));
+	}
+	/**
+	 * Add the unchanged nodes within contextRadius hops (in any direction)
+	 * of the nodes of each temp graph, nearest first, up to contextBudget
+	 * nodes per temp graph
+	 */
+	private void includeContext() {
+		for (int node : new AdjacencyIndex(source).neighbourhood(
+				getTempNodes(source, sourceTempRegistry), contextRadius, contextBudget)) {
+			addIfNotFoundInSourceTemp(source, node, ADD_MODE.NORMAL);
+		}
+		for (int node : new AdjacencyIndex(target).neighbourhood(
+				getTempNodes(target, targetTempRegistry), contextRadius, contextBudget)) {
+			addIfNotFoundInTargetTemp(target, node, ADD_MODE.NORMAL);
+		}
 	}
 
-	private Collection<MutableNode> getAllNodes(MutableGraph graph) {
-		Set<MutableNode> nodes = new HashSet<>();
-		nodes.addAll(graph.nodes());
-		for (MutableGraph subgraph : graph.graphs()) {
-			nodes.addAll(getAllNodes(subgraph));
+	/**
+	 * Nodes of a compared graph with a copy in the temp graph
+	 */
+	private IntList getTempNodes(CompactDotGraph graph, TempGraphRegistry registry) {
+		IntList nodes = new IntList();
+		for (int nameId : registry.getNodeNames()) {
+			int node = graph.findNode(nameId);
+			if (node != CompactDotGraph.NONE) {
+				nodes.add(node);
+			}
 		}
 		return nodes;
 	}
 
-	private void processAddedNodes() {
-		detectAddedNodes();
-		for (MutableNode n : addedNodes) {
-			addNodeToTargetTemp(n, ADD_MODE.ADDED);
+	private void includeExtraLinksInTargetTemp() {
+		// links are created from (auxiliary nodes named after) the node copies
+		for (int nameId : targetTempRegistry.getNodeNames()) {
+			MutableNode node_targetTemp = targetTempRegistry.findNode(nameId);
+			int node = target.findNode(nameId);
+			if (node == CompactDotGraph.NONE) {
+				continue;
+			}
+			for (int edge = target.edgesStart(node); edge < target.edgesEnd(node); edge++) {
+				int linkTarget = target.getEdgeTarget(edge);
+				if (linkTarget == CompactDotGraph.NONE) {
+					continue;
+				}
+				MutableNode linkTarget_targetTemp =
+						targetTempRegistry.findNode(target.getNodeName(linkTarget));
+				if (linkTarget_targetTemp != null &&
+						!targetTempRegistry.containsLink(nameId, target.getEdgeName(edge))) {
+					copyLink(target_temp, target, node, edge,
+							node_targetTemp, linkTarget_targetTemp);
+				}
+			}
 		}
 	}
 
-	private void detectAddedNodes() {
-		Set<MutableNode> sourceNodes = getUnmutableSourceNodes();
-		for (MutableNode targetNode : getUnmutableTargetNodes()) {
-			boolean found = false;
-			for (MutableNode sourceNode : sourceNodes) {
-				if (equalsByName(targetNode, sourceNode)) {
-					found = true;
-					break;
+	private void includeExtraLinksInSourceTemp() {
+		for (int nameId : sourceTempRegistry.getNodeNames()) {
+			MutableNode node_sourceTemp = sourceTempRegistry.findNode(nameId);
+			int node = source.findNode(nameId);
+			if (node == CompactDotGraph.NONE) {
+				continue;
+			}
+			for (int edge = source.edgesStart(node); edge < source.edgesEnd(node); edge++) {
+				int linkTarget = source.getEdgeTarget(edge);
+				if (linkTarget == CompactDotGraph.NONE) {
+					continue;
+				}
+				MutableNode linkTarget_sourceTemp =
+						sourceTempRegistry.findNode(source.getNodeName(linkTarget));
+				if (linkTarget_sourceTemp != null &&
+						!sourceTempRegistry.containsLink(nameId, source.getEdgeName(edge))) {
+					Link newLink = copyLink(source_temp, source, node, edge,
+							node_sourceTemp, linkTarget_sourceTemp);
+					// mark link as deleted if the node is also marked as such
+					if (removedSourceNodes[node]) {
+						DotDiffUtil.paintDeleted(newLink);
+					}
 				}
 			}
-			if (!found) {
-				addedNodes.add(targetNode);
+		}
+	}
+
+	private void processAddedNodes() {
+		for (int node = 0; node < target.nodeCount(); node++) {
+			if (addedTargetNodes[node]) {
+				addedNodes.add(target.getNode(node));
+				addNodeToTargetTemp(target.getNode(node), ADD_MODE.ADDED);
 			}
 		}
 	}
 
 	private void processAddedNodesLinks() {
-		for (MutableNode addedNode : addedNodes) {
+		for (int addedNode = 0; addedNode < target.nodeCount(); addedNode++) {
+			if (!addedTargetNodes[addedNode]) {
+				continue;
+			}
 			// invariant: all added nodes are already in targetTemp graph, so just find
-			MutableNode addedNode_targetTemp = findNodeInTargetTemp(addedNode);
-			for (Link addedLink : addedNode.links()) {
-				MutableNode linkTarget =
-						findLinkTarget(context.getTargetGraph(), addedLink);
+			MutableNode addedNode_targetTemp =
+					targetTempRegistry.findNode(target.getNodeName(addedNode));
+			for (int edge = target.edgesStart(addedNode); edge < target.edgesEnd(addedNode); edge++) {
+				int linkTarget = target.getEdgeTarget(edge);
+				if (linkTarget == CompactDotGraph.NONE) {
+					continue;
+				}
 				// add referenced elements to sourceTemp (if they are not new too)
-				// TODO: is this necessary / wanted?
-				if (findNode(linkTarget, addedNodes) == null) {
-					addIfNotFoundInSourceTemp(linkTarget);
+				//   as implicit context, an explicit radius adds it by distance
+				if (contextRadius == IMPLICIT_CONTEXT && !addedTargetNodes[linkTarget]) {
+					addIfNotFoundInSourceTemp(target, linkTarget, ADD_MODE.NORMAL);
 				}
 
 				// add referenced elements to target temp
 				MutableNode linkTarget_targetTemp =
-						addIfNotFoundInTargetTemp(linkTarget, ADD_MODE.NORMAL);
+						addIfNotFoundInTargetTemp(target, linkTarget, ADD_MODE.NORMAL);
 
-				Link link = null;
-				link = link(target_temp,
-						addedNode_targetTemp, linkTarget_targetTemp,
-						addedLink.from(), addedLink.to());
-				copyLinkAttributes(link, addedLink);
+				Link link = copyLink(target_temp, target, addedNode, edge,
+						addedNode_targetTemp, linkTarget_targetTemp);
 				DotDiffUtil.paintAdded(link);
 			}
 		}
 	}
 
 	private void processRemovedNodes() {
-		for (MutableNode node : removedNodes) {
-			addIfNotFoundInSourceTemp(node, ADD_MODE.REMOVED);
+		for (int node = 0; node < source.nodeCount(); node++) {
+			if (removedSourceNodes[node]) {
+				addIfNotFoundInSourceTemp(source, node, ADD_MODE.REMOVED);
+			}
 		}
 	}
 
-	private void compareNodeAttributes(MutableNode left_node) {
-		//get counter part node
-		MutableNode right_node = findNode(left_node, context.getTargetGraph().nodes());
-		//if node exists
-		if (right_node != null) {
-			//compare all attributes
-			for(Entry<String, Object> attr: left_node.attrs()) {
-				compareAttribute(left_node, right_node, attr);
+	private void processNodeAttributes(int left_node) {
+		int right_node = counterparts[left_node];
+		if (right_node == CompactDotGraph.NONE) {
+			removedNodes.add(source.getNode(left_node));
+			return;
+		}
+		String name = pool.get(source.getNodeName(left_node));
+		for (String key : result.getRemovedAttributes().getOrDefault(name, Collections.emptyList())) {
+			addRemovedAttr(source.getNode(left_node), key);
+		}
+
+		//if there are changed attributes, change color of the right node
+		if (changedSourceNodes[left_node]) {
+			MutableNode right = target.getNode(right_node);
+			for (String key : result.getChangedAttributes().get(name)) {
+				addChangedAttr(right, key);
+				addChangedAttr(source.getNode(left_node), key);
 			}
-			
-			//if there are changed attributes, change color of the right node
-			if (getChangedAttrs(right_node).size() != 0) {
-				changedNodes.add(right_node);
-				//paint orange for changed attributes
-				for(String s: getChangedAttrs(right_node)) {
-					if (s.equals("label")) {
-						DotDiffUtil.paintLabelChanged(right_node);
-					}
-					else {
-						DotDiffUtil.paintChanged(right_node);
-					}
+			changedNodes.add(right);
+			//paint orange for changed attributes
+			for(String s: getChangedAttrs(right)) {
+				if (s.equals("label")) {
+					DotDiffUtil.paintLabelChanged(right);
+				}
+				else {
+					DotDiffUtil.paintChanged(right);
 				}
-				// In this nidi3 library adding a node = adding
-				// all its links and the targets of the links recursively
-				// A copy of the node is made in the following methods to avoid that
-
-				// add left node (to compare original with changes)
-				addIfNotFoundInSourceTemp(left_node);
-				
-				// right node copy (modified version)
-				addIfNotFoundInTargetTemp(right_node, ADD_MODE.CHANGED);
 			}
-		}
-		else {
-			// node is deleted
-			removedNodes.add(left_node);
-		}
+			// In this nidi3 library adding a node = adding
+			// all its links and the targets of the links recursively
+			// A copy of the node is made in the following methods to avoid that
 
+			// add left node (to compare original with changes)
+			addIfNotFoundInSourceTemp(source, left_node, ADD_MODE.NORMAL);
+			
+			// right node copy (modified version)
+			addIfNotFoundInTargetTemp(target, right_node, ADD_MODE.CHANGED);
+		}
 	}
 
-	public void compareNodeLinks(MutableNode left_node) {
+	private void processNodeLinks(int left_node) {
 		//get counter part node
-		MutableNode right_node = findNode(left_node, context.getTargetGraph().nodes());
+		int right_node = counterparts[left_node];
 
 		// if left_node does not exist in right graph, none of its links are processed
-		if (right_node == null) {
+		if (right_node == CompactDotGraph.NONE) {
 			return;
 		}
 
-		//compare all links of the left node
-		for (Link left_link : left_node.links()) {
-			//find counter part
-			Link right_link = findLink(right_node, left_link.attrs().get("name").toString());
-			//if link exists
-			if (right_link != null) {
-				//if link has changed
-				if (!compareLink(left_node, right_node, left_link, right_link)) {
-					addChangedLink(left_node, left_link);
-					addChangedLink(right_node, right_link);
-				}
-				else {
-					//add unchanged link
-					addUnchangedLink(right_node, right_link);
+		changedSourceEdges.clear();
+		changedTargetEdges.clear();
+		removedSourceEdges.clear();
+
+		// collect the links of the left node changed or removed when detecting changes
+		for (int left_link = source.edgesStart(left_node);
+				left_link < source.edgesEnd(left_node); left_link++) {
+			if (sourceEdgeStates[left_link] == EDGE_CHANGED) {
+				changedSourceEdges.add(left_link);
+				addChangedLink(source.getNode(left_node), source.getLink(left_link));
+				int right_link = sourceEdgeCounterparts[left_link];
+				if (right_link != CompactDotGraph.NONE) {
+					changedTargetEdges.add(right_link);
+					addChangedLink(target.getNode(right_node), target.getLink(right_link));
 				}
 			}
-			else {
-				//add to removed links
-				addRemovedLink(left_node, left_link);
+			else if (sourceEdgeStates[left_link] == EDGE_REMOVED) {
+				removedSourceEdges.add(left_link);
+				addRemovedLink(source.getNode(left_node), source.getLink(left_link));
 			}
 		}
 
 		//for all changed links for the left node (sourceTemp, original graph)
-		for (Link changed_link : getChangedLinks(left_node)) {
+		for (int i = 0; i < changedSourceEdges.size(); i++) {
+			int changed_link = changedSourceEdges.get(i);
 			//find the link target
-			MutableNode linkTarget = findLinkTarget(context.getSourceGraph(), changed_link);
-			MutableNode linkTarget_sourceTemp = addIfNotFoundInSourceTemp(linkTarget);
+			int linkTarget = source.getEdgeTarget(changed_link);
+			if (linkTarget == CompactDotGraph.NONE) {
+				continue;
+			}
+			MutableNode linkTarget_sourceTemp =
+					addIfNotFoundInSourceTemp(source, linkTarget, ADD_MODE.NORMAL);
 
 			// the link source is current left node
-			MutableNode linkSource_sourceTemp = addIfNotFoundInSourceTemp(left_node);
+			MutableNode linkSource_sourceTemp =
+					addIfNotFoundInSourceTemp(source, left_node, ADD_MODE.NORMAL);
 			
-			Link right_link = link(source_temp,
-					linkSource_sourceTemp, linkTarget_sourceTemp,
-					changed_link.from(), changed_link.to());
-			copyLinkAttributes(right_link, changed_link);
+			copyLink(source_temp, source, left_node, changed_link,
+					linkSource_sourceTemp, linkTarget_sourceTemp);
 		}
 
 		//for all changed links for the right node (targetTemp, graph with changes)
-		for (Link changed_link : getChangedLinks(right_node)) {
+		for (int i = 0; i < changedTargetEdges.size(); i++) {
+			int changed_link = changedTargetEdges.get(i);
 			//find target and add it to the right temp graph
-			MutableNode linkTarget = findLinkTarget(context.getTargetGraph(), changed_link);
-			MutableNode linkTarget_targetTemp = addIfNotFoundInTargetTemp(linkTarget, ADD_MODE.NORMAL);
+			int linkTarget = target.getEdgeTarget(changed_link);
+			if (linkTarget == CompactDotGraph.NONE) {
+				continue;
+			}
+			MutableNode linkTarget_targetTemp =
+					addIfNotFoundInTargetTemp(target, linkTarget, ADD_MODE.NORMAL);
 
 			//add the source to the right temp graph too (i.e. right_node)
-			MutableNode linkSource_targetTemp = addIfNotFoundInTargetTemp(right_node, ADD_MODE.NORMAL);
+			MutableNode linkSource_targetTemp =
+					addIfNotFoundInTargetTemp(target, right_node, ADD_MODE.NORMAL);
 
-			Link right_link = link(target_temp,
-					linkSource_targetTemp, linkTarget_targetTemp,
-					changed_link.from(), changed_link.to());
-			copyLinkAttributes(right_link, changed_link);
+			Link right_link = copyLink(target_temp, target, right_node, changed_link,
+					linkSource_targetTemp, linkTarget_targetTemp);
 			DotDiffUtil.paintChanged(right_link);
 		}
 
 		//for all removed links
-		for (Link removed_link : getRemovedLinks(left_node)) {
+		for (int i = 0; i < removedSourceEdges.size(); i++) {
+			int removed_link = removedSourceEdges.get(i);
+			int leftLinkTarget = source.getEdgeTarget(removed_link);
+			if (leftLinkTarget == CompactDotGraph.NONE) {
+				continue;
+			}
 			/*
 			 * add affected nodes and link to the left graph
 			 */
-			MutableNode leftLinkSource_sourceTemp = addIfNotFoundInSourceTemp(left_node);
+			MutableNode leftLinkSource_sourceTemp =
+					addIfNotFoundInSourceTemp(source, left_node, ADD_MODE.NORMAL);
 
-			MutableNode leftLinkTarget = findLinkTarget(context.getSourceGraph(), removed_link);
-			MutableNode leftLinkTarget_sourceTemp = addIfNotFoundInSourceTemp(leftLinkTarget);
+			MutableNode leftLinkTarget_sourceTemp =
+					addIfNotFoundInSourceTemp(source, leftLinkTarget, ADD_MODE.NORMAL);
 
-			Link left_link = link(source_temp,
-					leftLinkSource_sourceTemp, leftLinkTarget_sourceTemp,
-					removed_link.from(), removed_link.to());
-			copyLinkAttributes(left_link, removed_link);
+			Link left_link = copyLink(source_temp, source, left_node, removed_link,
+					leftLinkSource_sourceTemp, leftLinkTarget_sourceTemp);
 			// mark link deletions in the previous graph to balance information density
 			DotDiffUtil.paintDeleted(left_link);
 		}
@@ -408,41 +741,83 @@ public class DotDiffEngine implements DiffEngine {
 		 * below handles added links
 		 */
 
-		// get right node copy and remove changed and unchanged links
-		MutableNode right_node_copy = right_node.copy();
-		right_node_copy.links().removeAll(getChangedLinks(right_node));
-		right_node_copy.links().removeAll(getUnchangedLinks(right_node));
+		// each link of the right node not matched by a left link is an added one
+		for (int right_link = target.edgesStart(right_node);
+				right_link < target.edgesEnd(right_node); right_link++) {
 
-		// each link remaining in the right node copy is an added one
-		for (Link right_link : right_node_copy.links()) {
+			if (targetEdgeStates[right_link] != EDGE_UNMATCHED) {
+				continue;
+			}
+			addAddedLink(target.getNode(right_node), target.getLink(right_link));
 
-			addAddedLink(right_node_copy, right_link);
+			int linkTarget = target.getEdgeTarget(right_link);
+			if (linkTarget == CompactDotGraph.NONE) {
+				continue;
+			}
 
 			// the source is the right node
-			MutableNode linkSource = right_node;
 			MutableNode linkSource_targetTemp =
-					addIfNotFoundInTargetTemp(linkSource, ADD_MODE.NORMAL);
+					addIfNotFoundInTargetTemp(target, right_node, ADD_MODE.NORMAL);
 
-			MutableNode linkTarget = findLinkTarget(context.getTargetGraph(), right_link);
 			MutableNode linkTarget_targetTemp =
-					addIfNotFoundInTargetTemp(linkTarget, ADD_MODE.NORMAL);
+					addIfNotFoundInTargetTemp(target, linkTarget, ADD_MODE.NORMAL);
 
-			Link link = link(target_temp,
-					linkSource_targetTemp, linkTarget_targetTemp,
-					right_link.from(), right_link.to());
-			copyLinkAttributes(link, right_link);
+			Link link = copyLink(target_temp, target, right_node, right_link,
+					linkSource_targetTemp, linkTarget_targetTemp);
 			DotDiffUtil.paintAdded(link);
 
 			// for the added link, add nodes that existed in previous version to the view (sourceTemp)
-			if (findNode(linkSource, addedNodes) == null) {
-				addIfNotFoundInSourceTemp(linkSource);
-			}
-			if (findNode(linkTarget, addedNodes) == null) {
-				addIfNotFoundInSourceTemp(linkTarget);
+			//   (the right node has a counterpart, so it is never an added one)
+			addIfNotFoundInSourceTemp(target, right_node, ADD_MODE.NORMAL);
+			if (!addedTargetNodes[linkTarget]) {
+				addIfNotFoundInSourceTemp(target, linkTarget, ADD_MODE.NORMAL);
 			}
 		}
 	}
+
+	/**
+	 * Links with the same name are equal if their labels (when the source
+	 * link has one) and their target node names match, and both targets
+	 * are either nodes or ports
+	 */
+	private boolean compareLink(int left_link, int right_link) {
+		int label = source.getEdgeLabel(left_link);
+		if (label != CompactDotGraph.NONE && label != target.getEdgeLabel(right_link)) {
+			return false;
+		}
+		int targetKind = source.getEdgeTargetKind(left_link);
+		if (targetKind == CompactDotGraph.TARGET_OTHER) {
+			return true;
+		}
+		return targetKind == target.getEdgeTargetKind(right_link) &&
+				target.getEdgeTarget(right_link) != CompactDotGraph.NONE &&
+				source.getNodeName(source.getEdgeTarget(left_link)) ==
+						target.getNodeName(target.getEdgeTarget(right_link));
+	}
 	
+	/**
+	 * Link two nodes of a temp graph like an edge of a compared graph does,
+	 * copying its attributes, and register the new link
+	 *
+	 * @param graph The temp graph
+	 * @param compared The compared graph containing the edge
+	 * @param node Source node of the edge in the compared graph
+	 */
+	private Link copyLink(MutableGraph graph, CompactDotGraph compared, int node, int edge,
+			MutableNode sourceNode, MutableNode targetNode) {
+
+		Link originalLink = compared.getLink(edge);
+		Link link = link(graph, sourceNode, targetNode, originalLink.from(), originalLink.to());
+		copyLinkAttributes(link, originalLink);
+		getTempRegistry(graph).addLink(
+				compared.getNodeName(node), compared.getEdgeName(edge));
+		return link;
+	}
+
+	private TempGraphRegistry getTempRegistry(MutableGraph graph) {
+		return graph == source_temp ? sourceTempRegistry : targetTempRegistry;
+	}
+
 	// TODO: should we be careful here about not copying the same edge name
 	//   multiple times into the same graph?
 	private void copyLinkAttributes(Link leftLink, Link rightLink) {
@@ -451,27 +826,6 @@ public class DotDiffEngine implements DiffEngine {
 		}
 	}
 
-	public void compareAttribute(MutableNode source, MutableNode target, Entry<String, Object> attribute) {
-		Entry<String, Object> correspond = findAttribute(target, attribute.getKey());
-		
-		// if attr does not exist - attr is removed
-		if (correspond == null) {
-			addRemovedAttr(source, attribute.getKey());
-		}
-		else {
-			//if attrs are same - add to unchanged?
-			if (attribute.getValue().toString().equals(correspond.getValue().toString())) {
-				addUnchangedAttr(target, correspond.getKey());
-				addUnchangedAttr(source, attribute.getKey());
-			}
-			//add to changed attr
-			else {
-				addChangedAttr(target, correspond.getKey());
-				addChangedAttr(source, attribute.getKey());
-			}
-		}
-	}
-	
 	public MutableNode getNodeCopy(MutableNode node) {
 		MutableNode copy = node.copy();
 		copy.links().clear();
@@ -507,6 +861,7 @@ public class DotDiffEngine implements DiffEngine {
 		MutableNode copy = getNodeCopy(node);
 		MutableGraph g = clusterWrap(copy, mode);
 		source_temp.graphs().add(g);
+		sourceTempRegistry.addNode(pool.intern(node.name().value()), copy);
 		return copy;
 	}
 	
@@ -514,273 +869,64 @@ public class DotDiffEngine implements DiffEngine {
 		MutableNode copy = getNodeCopy(node);
 		MutableGraph g = clusterWrap(copy, mode);
 		target_temp.graphs().add(g);
+		targetTempRegistry.addNode(pool.intern(node.name().value()), copy);
 		return copy;
 	}
 	
 	/**
-	 * Add if not found in the sourceTemp graph
+	 * Add a node of one of the compared graphs if its name is not found
+	 * in the sourceTemp graph
 	 */
-	public MutableNode addIfNotFoundInSourceTemp(MutableNode node) {
-		return addIfNotFoundInSourceTemp(node, ADD_MODE.NORMAL);
-	}
-
-	public MutableNode addIfNotFoundInSourceTemp(MutableNode node, ADD_MODE mode) {
-		MutableNode node_sourceTemp = findNodeInSourceTemp(node);
+	private MutableNode addIfNotFoundInSourceTemp(CompactDotGraph graph, int node, ADD_MODE mode) {
+		MutableNode node_sourceTemp = sourceTempRegistry.findNode(graph.getNodeName(node));
 		if (node_sourceTemp == null) {
-			node_sourceTemp = addNodeToSourceTemp(node, mode);
+			node_sourceTemp = addNodeToSourceTemp(graph.getNode(node), mode);
 		}
 		return node_sourceTemp;
 	}
 
 	/**
-	 * Add if not found in the targetTemp graph with the provided addition mode
+	 * Add a node of one of the compared graphs if its name is not found
+	 * in the targetTemp graph, with the provided addition mode
 	 */
-	public MutableNode addIfNotFoundInTargetTemp(MutableNode node, ADD_MODE addMode) {
-		MutableNode node_targetTemp = findNodeInTargetTemp(node);
+	private MutableNode addIfNotFoundInTargetTemp(CompactDotGraph graph, int node, ADD_MODE addMode) {
+		MutableNode node_targetTemp = targetTempRegistry.findNode(graph.getNodeName(node));
 		if (node_targetTemp == null) {
-			node_targetTemp = addNodeToTargetTemp(node, addMode);
+			node_targetTemp = addNodeToTargetTemp(graph.getNode(node), addMode);
 		}
 		return node_targetTemp;
 	}
 
-	private HashSet<MutableNode> getUnmutableSourceNodes() {
-		return (HashSet<MutableNode>) context.getSourceGraph().nodes();
-	}
-	
-	private HashSet<MutableNode> getUnmutableTargetNodes() {
-		return (HashSet<MutableNode>) context.getTargetGraph().nodes();
-	}
-
-	private MutableNode findNodeByName(String nodeName, MutableGraph graph) {
-		for (MutableGraph g : graph.graphs()) {
-			for (MutableNode otherNode : g.rootNodes()) {
-				if (otherNode.name().value().equals(nodeName)) {
-					return otherNode;
-				}
-			}
-		}
-		return null;
-	}
-
 	public MutableNode findNodeInSourceTemp(MutableNode node) {
-		return findNodeByName(node.name().value(), source_temp);
+		return sourceTempRegistry.findNode(pool.find(node.name().value()));
 	}
 	
 	public MutableNode findNodeInTargetTemp(MutableNode node) {
-		return findNodeByName(node.name().value(), target_temp);
-	}
-	
-	public boolean compareLink(MutableNode ln, MutableNode rn, Link s, Link t) {
-		boolean result = true;
-		if (s.attrs().get("label") != null) {
-			if (!s.attrs().get("label").toString().equals(t.attrs().get("label"))) {
-				result = false;
-			}
-		}
-		
-		if (s.to() instanceof PortNode) {
-			PortNode s_temp = (PortNode) s.to();
-			if (t.to() instanceof PortNode) {
-				PortNode t_temp = (PortNode) t.to();
-				if (!s_temp.name().toString().equals(t_temp.name().toString())) {
-					result = false;
-				}
-			}
-			else {
-				result = false;
-			}
-		}
-		else if (s.to() instanceof MutableNode) {
-			MutableNode s_temp = (MutableNode) s.to();
-			if (t.to() instanceof MutableNode) {
-				MutableNode t_temp = (MutableNode) t.to();
-				if (!s_temp.name().toString().equals(t_temp.name().toString())) {
-					result = false;
-				}
-			}
-			else {
-				result = false;
-			}
-		}
-		return result;
-	}
-
-	private boolean equalsByName(MutableNode left, MutableNode right) {
-		return left.name().value().equals(right.name().value());
-	}
-
-	private MutableNode findNode(MutableNode node, Collection<MutableNode> nodeCollection) {
-		return findNode(node.name().value(), nodeCollection);
-	}
-
-	private MutableNode findNode(String name, Collection<MutableNode> nodeCollection) {
-		for (MutableNode n : nodeCollection) {
-			if (name.equals(n.name().value())) {
-				return n;
-			}
-		}
-		return null;
-	}
-
-	/**
-	 * This method does an exhaustive search, including the special nodes that are
-	 * added to the temp graphs when cross-cluster links are created. This
-	 * special nodes are needed to prevent that the linked clusters are
-	 * automatically merged when generating the dot (don't know why that happens)
-	 */
-	public Link findLink(MutableGraph graph, MutableNode node, String name) {
-		Link link = findLink(node, name);
-		if (link != null) {
-			return link;
-		}
-		for (MutableNode otherNode : getAllNodes(graph)) {
-			if (equalsByName(node, otherNode)) {
-				link = findLink(otherNode, name);
-				if (link != null) {
-					return link;
-				}
-			}
-		}
-		return null;
+		return targetTempRegistry.findNode(pool.find(node.name().value()));
 	}
 
-	public Link findLink(MutableNode n, String name) {
-		//this is assuming that links have 'name'
-		for(Link l: n.links()) {
-			if (l.attrs().get("name").toString().equals(name)) {
-				return l;
-			}
-		}
-		return null;
-	}
-
-	public MutableNode findLinkSource(MutableGraph graph, Link link) {
-		String name = "";
-		// obtain name for the target
-		if (link.from() instanceof PortNode) {
-			PortNode portNode = (PortNode) link.from();
-			name = portNode.name().toString();
-		}
-		else if (link.from() instanceof MutableNode) {
-			MutableNode mutableNode = (MutableNode) link.from();
-			name = mutableNode.name().toString();
-		}
-		// get the node in the graph by name
-		for (MutableNode node : graph.nodes()) {
-			if (node.name().toString().equals(name)) {
-				return node;
-			}
-		}
-		return null;
-	}
-
-	public MutableNode findLinkTarget(MutableGraph graph, Link link) {
-		String name = "";
-		//obtain name for the target
-		if (link.to() instanceof PortNode) {
-			PortNode portNode = (PortNode) link.to();
-			name = portNode.name().toString();
-		}
-		else if (link.to() instanceof MutableNode) {
-			MutableNode mutableNode = (MutableNode) link.to();
-			name = mutableNode.name().toString();
-		}
-		//get the node in the graph by name
-		for (MutableNode node : graph.nodes()) {
-			if (node.name().toString().equals(name)) {
-				return node;
-			}
-		}
-		return null;
-	}
-
-	public Entry<String, Object> findAttribute(MutableNode node, String key) {
-		for(Entry<String, Object> attr: node.attrs()) {
-			if (attr.getKey().equals(key)) {
-				return attr;
-			}
-		}
-		return null;
-	}
-
-	private void addUnchangedLink(MutableNode node, Link link) {
-		Set<Link> links = unchangedLinks.get(node);
-		if (links == null) {
-			links = new HashSet<Link>();
-			links.add(link);
-			unchangedLinks.put(node, links);
-		}
-		else {
-			links.add(link);	
-		}
-	}
-	
 	private void addAddedLink(MutableNode node, Link link) {
-		Set<Link> links = addedLinks.get(node);
-		if (links == null) {
-			links = new HashSet<Link>();
-			links.add(link);
-			addedLinks.put(node, links);
-		}
-		else {
-			links.add(link);
-		}
+		addedLinks.computeIfAbsent(node, n -> new LinkedIdentitySet<>()).add(link);
 	}
 
 	private void addChangedLink(MutableNode node, Link link) {
-		Set<Link> links = changedLinks.get(node);
-		if (links == null) {
-			links = new HashSet<Link>();
-			links.add(link);
-			changedLinks.put(node, links);
-		}
-		else {
-			links.add(link);	
-		}
+		changedLinks.computeIfAbsent(node, n -> new LinkedIdentitySet<>()).add(link);
 	}
 
 	private void addRemovedLink(MutableNode node, Link link) {
-		Set<Link> links = removedLinks.get(node);
-		if (links == null) {
-			links = new HashSet<Link>();
-			links.add(link);
-			removedLinks.put(node, links);
-		}
-		else {
-			links.add(link);
-		}
-	}
-	
-	public Set<Link> getUnchangedLinks(MutableNode node) {
-		Set<Link> links = unchangedLinks.get(node);
-		if (links == null) {
-			links = new HashSet<Link>();
-		}
-		return links;
+		removedLinks.computeIfAbsent(node, n -> new LinkedIdentitySet<>()).add(link);
 	}
 	
 	public Set<Link> getChangedLinks(MutableNode node) {
-		Set<Link> links = changedLinks.get(node);
-		if (links == null) {
-			links = new HashSet<Link>();
-		}
-		return links;
+		return changedLinks.getOrDefault(node, new LinkedIdentitySet<>());
 	}
 	
 	public Set<Link> getAddedLinks(MutableNode node) {
-		Set<Link> links = addedLinks.get(node);
-		if (links == null) {
-			links = new HashSet<Link>();
-		}
-		return links;
+		return addedLinks.getOrDefault(node, new LinkedIdentitySet<>());
 	}
 	
 	public Set<Link> getRemovedLinks(MutableNode node) {
-		Set<Link> links = removedLinks.get(node);
-		if (links == null) {
-			links = new HashSet<Link>();
-		}
-		return links;
+		return removedLinks.getOrDefault(node, new LinkedIdentitySet<>());
 	}
 	
 	private void addChangedAttr(MutableNode node, String attr) {
@@ -795,18 +941,6 @@ public class DotDiffEngine implements DiffEngine {
 		}
 	}
 	
-	private void addUnchangedAttr(MutableNode node, String attr) {
-		Set<String> attrs = unchangedAttrs.get(node);
-		if (attrs == null) {
-			attrs = new HashSet<String>();
-			attrs.add(attr);
-			unchangedAttrs.put(node, attrs);
-		}
-		else {
-			attrs.add(attr);
-		}
-	}
-	
 	private void addRemovedAttr(MutableNode node, String attr) {
 		Set<String> attrs = removedAttrs.get(node);
 		if (attrs == null) {
@@ -857,20 +991,90 @@ public class DotDiffEngine implements DiffEngine {
 		return attrs;
 	}
 	
+	/**
+	 * Rendering of the previous version temp graph, or the html list of
+	 * its changes if too large to be laid out
+	 */
 	public String getOldVersion(Format format) {
-		return Graphviz.fromGraph(source_temp).scale(GRAPH_SCALE).render(format).toString();
+		if (oldLayout != null && oldLayout.isListing()) {
+			return DotDiffListing.format(result, true);
+		}
+		return renderOrList(source_temp, format, true, node -> true);
 	}
 	
 	public String getNewVersion(Format format) {
-		return Graphviz.fromGraph(target_temp).scale(GRAPH_SCALE).render(format).toString();
+		if (newLayout != null && newLayout.isListing()) {
+			return DotDiffListing.format(result, false);
+		}
+		return renderOrList(target_temp, format, false, node -> true);
+	}
+
+	/**
+	 * Rendering of the previous version part of a component, or the html
+	 * list of its changes if too large to be laid out
+	 */
+	public String getOldVersion(DotDiffComponent component, Format format) {
+		if (component.getOldLayout().isListing()) {
+			return DotDiffListing.format(result, true, component::contains);
+		}
+		return renderOrList(component.getOldGraph(), format, true, component::contains);
+	}
+
+	public String getNewVersion(DotDiffComponent component, Format format) {
+		if (component.getNewLayout().isListing()) {
+			return DotDiffListing.format(result, false, component::contains);
+		}
+		return renderOrList(component.getNewGraph(), format, false, component::contains);
+	}
+
+	/**
+	 * Layout chosen for the previous version temp graph by compare()
+	 */
+	public DotLayoutPolicy.Layout getOldLayout() {
+		return oldLayout;
+	}
+
+	public DotLayoutPolicy.Layout getNewLayout() {
+		return newLayout;
+	}
+
+	/**
+	 * Render a graph, or list its changes if dot did not render it in time
+	 */
+	private String renderOrList(MutableGraph graph, Format format, boolean previous,
+			Predicate<String> nodes) {
+
+		try {
+			return render(graph, format);
+		}
+		catch (DotRenderTimeoutException e) {
+			return "<p>" + e.getMessage() + ", its changes are listed instead</p>"
+					+ DotDiffListing.format(result, previous, nodes);
+		}
+	}
+
+	/**
+	 * Render a temp graph, reusing the cached rendering of an identical one.
+	 * Graphs given a cheaper layout than dot because of their size are not
+	 * rendered again by the (slower) embedded engine if dot times out
+	 */
+	protected String render(MutableGraph graph, Format format) {
+		String dot = graph.toString();
+		boolean timeoutFallback = graph.graphAttrs().get("layout") == null;
+		if (renderCache == null) {
+			return renderer.render(dot, GRAPH_SCALE, format, timeoutFallback);
+		}
+		String key = DotRenderCache.getKey(dot, GRAPH_SCALE, format.name(),
+				renderer.getEffectiveBackend().name());
+		return renderCache.get(key, () -> renderer.render(dot, GRAPH_SCALE, format, timeoutFallback));
 	}
 
 	public boolean oldVersionEmpty() {
-		return getAllNodes(source_temp).isEmpty();
+		return sourceTempRegistry.isEmpty();
 	}
 
 	public boolean newVersionEmpty() {
-		return getAllNodes(target_temp).isEmpty();
+		return targetTempRegistry.isEmpty();
 	}
 
 	/**
@@ -945,14 +1149,175 @@ public class DotDiffEngine implements DiffEngine {
 		return format.equals("graphviz-dot");
 	}
 
+	@Override
+	public void configure(Map<String, String> parameters) {
+		// keeps the settings of the installed policy the parameters leave out
+		layoutPolicy.configure(parameters);
+		String radius = parameters.get(CONTEXT_RADIUS_PARAMETER);
+		if (radius != null) {
+			setContextRadius(DotLayoutPolicy.parseInt(CONTEXT_RADIUS_PARAMETER, radius));
+		}
+		String budget = parameters.get(CONTEXT_BUDGET_PARAMETER);
+		if (budget != null) {
+			setContextBudget(DotLayoutPolicy.parseInt(CONTEXT_BUDGET_PARAMETER, budget));
+		}
+		String partitioned = parameters.get(PARTITIONED_PARAMETER);
+		if (partitioned != null) {
+			setPartitioned(Boolean.parseBoolean(partitioned.trim()));
+		}
+		String concurrentLoading = parameters.get(CONCURRENT_LOADING_PARAMETER);
+		if (concurrentLoading != null) {
+			setLoadExecutor(Boolean.parseBoolean(concurrentLoading.trim()) ?
+					ForkJoinPool.commonPool() : null);
+		}
+		String concurrentRendering = parameters.get(CONCURRENT_RENDERING_PARAMETER);
+		if (concurrentRendering != null) {
+			setRenderPool(Boolean.parseBoolean(concurrentRendering.trim()) ?
+					DotRenderPool.getDefault() : null);
+		}
+		String backend = parameters.get(RENDERER_PARAMETER);
+		if (backend != null) {
+			// native or embedded
+			setRenderer(DotRenderer.getShared(DotRenderer.Backend.parse(backend)));
+		}
+	}
+
+	@Override
+	public String getVersion() {
+		// the layout policy and the context settings change the temp graphs,
+		// the backend their rendering (the configured one, checking whether
+		// dot can run would start its processes)
+		return String.format("2:%s:%s:context(%d,%d)%s", renderer.getBackend(),
+				layoutPolicy, contextRadius, contextBudget, partitioned ? ":partitioned" : "");
+	}
+
 	@Override
 	public void diff(ViewTree diffView, ViewTree left, ViewTree right) throws Exception {
 		this.context = new DotDiffContext(left.getContent().getText(), right.getContent().getText());
+		context.setExecutor(loadExecutor);
 		DotDiffContentPromise promise = new DotDiffContentPromise(this);
 		diffView.setPromise(promise);
 		diffView.setFormat(promise.getFormat());
 	}
 
+	/**
+	 * Executor used to parse the current version graph while the previous
+	 * one is parsed, for the contexts created by diff(). The common fork/join
+	 * pool by default, null to parse the graphs sequentially
+	 */
+	public void setLoadExecutor(Executor loadExecutor) {
+		this.loadExecutor = loadExecutor;
+	}
+
+	public Executor getLoadExecutor() {
+		return loadExecutor;
+	}
+
+	/**
+	 * Cache of the rendered graphs, shared by all engines by default
+	 * (null to always render them)
+	 */
+	public void setRenderCache(DotRenderCache renderCache) {
+		this.renderCache = renderCache;
+	}
+
+	public DotRenderCache getRenderCache() {
+		return renderCache;
+	}
+
+	/**
+	 * Threads used to render the previous and current version graphs at
+	 * once, the shared default pool unless set. With null they are rendered
+	 * one after the other on the thread evaluating the diff (as are the
+	 * components of partitioned diffs)
+	 */
+	public void setRenderPool(DotRenderPool renderPool) {
+		this.renderPool = renderPool;
+	}
+
+	public DotRenderPool getRenderPool() {
+		return renderPool;
+	}
+
+	/**
+	 * Graphviz backend used to render the graphs, the shared default
+	 * renderer unless set
+	 */
+	public void setRenderer(DotRenderer renderer) {
+		this.renderer = renderer;
+	}
+
+	public DotRenderer getRenderer() {
+		return renderer;
+	}
+
+	public void setLayoutPolicy(DotLayoutPolicy layoutPolicy) {
+		this.layoutPolicy = layoutPolicy;
+	}
+
+	public DotLayoutPolicy getLayoutPolicy() {
+		return layoutPolicy;
+	}
+
+	/**
+	 * Number of hops of unchanged context shown around the changes. With
+	 * 0 the temp graphs only hold the changed elements (and the endpoints
+	 * of changed links), and with k the nodes up to k links away and the
+	 * links between the shown nodes. By default (IMPLICIT_CONTEXT) the
+	 * links between the shown nodes and the targets of the links of added
+	 * nodes are included, as earlier versions did
+	 */
+	public void setContextRadius(int contextRadius) {
+		if (contextRadius < IMPLICIT_CONTEXT) {
+			throw new IllegalArgumentException(
+					String.format("Context radius must be at least %d (was %d)",
+							IMPLICIT_CONTEXT, contextRadius));
+		}
+		this.contextRadius = contextRadius;
+	}
+
+	public int getContextRadius() {
+		return contextRadius;
+	}
+
+	/**
+	 * Maximum number of context nodes added to each temp graph by a
+	 * positive context radius
+	 */
+	public void setContextBudget(int contextBudget) {
+		if (contextBudget < 0) {
+			throw new IllegalArgumentException(
+					String.format("Context budget cannot be negative (was %d)", contextBudget));
+		}
+		this.contextBudget = contextBudget;
+	}
+
+	public int getContextBudget() {
+		return contextBudget;
+	}
+
+	/**
+	 * If partitioned, the temp graphs are split by the connected components
+	 * of the compared graphs (nodes named alike in both versions belong to
+	 * the same component), and the components with changes are laid out and
+	 * rendered separately, in parallel. Components without changes are left
+	 * out, as they have no elements in the temp graphs
+	 */
+	public void setPartitioned(boolean partitioned) {
+		this.partitioned = partitioned;
+	}
+
+	public boolean isPartitioned() {
+		return partitioned;
+	}
+
+	/**
+	 * Components with changes, built by compare() when partitioned
+	 */
+	public List<DotDiffComponent> getComponents() {
+		return components;
+	}
+
 	public static String getSvgEvents() throws IOException {
 		if (svgEvents == null) {
 			svgEvents = PictoDiffPlugin.getFileContents(SVG_EVENTS_FILE);
@@ -960,6 +1325,22 @@ public class DotDiffEngine implements DiffEngine {
 		return svgEvents;
 	}
 
+	/**
+	 * @return The result of the last comparison, or null
+	 */
+	public DotDiffResult getResult() {
+		return result;
+	}
+
+	/**
+	 * Compare two DOT graphs without rendering them
+	 */
+	public static DotDiffResult computeDiff(String previousDot, String currentDot) throws IOException {
+		DotDiffEngine engine = new DotDiffEngine(new DotDiffContext(previousDot, currentDot));
+		engine.load();
+		return engine.computeDiff();
+	}
+
 	public Set<MutableNode> getChangedNodes() {
 		return changedNodes;
 	}
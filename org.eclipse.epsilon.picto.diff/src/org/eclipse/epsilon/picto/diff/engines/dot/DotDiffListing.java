@@ -0,0 +1,86 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.util.DotDiffUtil;
+
+/**
+ * Html list of the differences found in one of the compared graphs, shown
+ * instead of the graph when it is too large to be laid out. Uses the same
+ * colours as the rendered graphs
+ */
+public class DotDiffListing {
+
+	private DotDiffListing() {
+	}
+
+	/**
+	 * @param previous Whether to list the previous version changes (removed
+	 * elements) or the current version ones (added elements)
+	 */
+	public static String format(DotDiffResult result, boolean previous) {
+		return format(result, previous, node -> true);
+	}
+
+	/**
+	 * @param nodes Filter of the listed nodes, edges are listed if their
+	 * source node is
+	 */
+	public static String format(DotDiffResult result, boolean previous, Predicate<String> nodes) {
+		StringBuilder html = new StringBuilder("<ul style=\"text-align: left;\">");
+		for (String node : previous ? result.getRemovedNodes() : result.getAddedNodes()) {
+			if (nodes.test(node)) {
+				item(html, previous ? DotDiffUtil.DELETED : DotDiffUtil.ADDED,
+						previous ? "Removed node" : "Added node", node, Collections.emptyList());
+			}
+		}
+		Map<String, List<String>> versionAttributes = previous ?
+				result.getRemovedAttributes() : result.getAddedAttributes();
+		for (String node : result.getChangedNodes()) {
+			if (nodes.test(node)) {
+				item(html, DotDiffUtil.CHANGED, "Changed node", node,
+						result.getChangedAttributes().get(node), versionAttributes.get(node));
+			}
+		}
+		for (DotDiffResult.Edge edge : previous ? result.getRemovedEdges() : result.getAddedEdges()) {
+			if (nodes.test(edge.getSource())) {
+				item(html, previous ? DotDiffUtil.DELETED : DotDiffUtil.ADDED,
+						previous ? "Removed edge" : "Added edge", edge.toString(), Collections.emptyList());
+			}
+		}
+		for (DotDiffResult.Edge edge : result.getChangedEdges()) {
+			if (nodes.test(edge.getSource())) {
+				item(html, DotDiffUtil.CHANGED, "Changed edge", edge.toString(), Collections.emptyList());
+			}
+		}
+		return html.append("</ul>").toString();
+	}
+
+	@SafeVarargs
+	private static void item(StringBuilder html, String color, String kind, String element,
+			List<String>... attributes) {
+
+		html.append("<li style=\"color: ").append(color).append(";\">")
+				.append(kind).append(" <b>").append(escape(element)).append("</b>");
+		StringBuilder keys = new StringBuilder();
+		for (List<String> list : attributes) {
+			if (list == null) {
+				continue;
+			}
+			for (String key : list) {
+				keys.append(keys.length() == 0 ? "" : ", ").append(key);
+			}
+		}
+		if (keys.length() > 0) {
+			html.append(" (").append(escape(keys.toString())).append(")");
+		}
+		html.append("</li>");
+	}
+
+	private static String escape(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+}
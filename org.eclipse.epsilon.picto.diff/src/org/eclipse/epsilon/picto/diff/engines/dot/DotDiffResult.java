@@ -0,0 +1,190 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes between two DOT graphs, as detected by DotDiffEngine before
+ * building and rendering any diagram. Nodes are identified by name and
+ * edges by their source node and name, in order of appearance.
+ *
+ * Changed nodes are the ones with changed attribute values (the ones
+ * highlighted in the rendered diff); nodes with added or removed
+ * attributes only are not considered changed
+ */
+public class DotDiffResult {
+
+	protected final List<String> addedNodes;
+	protected final List<String> removedNodes;
+	protected final List<String> changedNodes;
+
+	protected final Map<String, List<String>> addedAttributes;
+	protected final Map<String, List<String>> removedAttributes;
+	protected final Map<String, List<String>> changedAttributes;
+
+	protected final List<Edge> addedEdges;
+	protected final List<Edge> removedEdges;
+	protected final List<Edge> changedEdges;
+
+	protected DotDiffResult(Builder builder) {
+		addedNodes = Collections.unmodifiableList(builder.addedNodes);
+		removedNodes = Collections.unmodifiableList(builder.removedNodes);
+		changedNodes = Collections.unmodifiableList(builder.changedNodes);
+		addedAttributes = freeze(builder.addedAttributes);
+		removedAttributes = freeze(builder.removedAttributes);
+		changedAttributes = freeze(builder.changedAttributes);
+		addedEdges = Collections.unmodifiableList(builder.addedEdges);
+		removedEdges = Collections.unmodifiableList(builder.removedEdges);
+		changedEdges = Collections.unmodifiableList(builder.changedEdges);
+	}
+
+	private static Map<String, List<String>> freeze(Map<String, List<String>> attributes) {
+		for (Map.Entry<String, List<String>> entry : attributes.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(attributes);
+	}
+
+	/**
+	 * Nodes of the current version missing in the previous one
+	 */
+	public List<String> getAddedNodes() {
+		return addedNodes;
+	}
+
+	/**
+	 * Nodes of the previous version missing in the current one
+	 */
+	public List<String> getRemovedNodes() {
+		return removedNodes;
+	}
+
+	public List<String> getChangedNodes() {
+		return changedNodes;
+	}
+
+	/**
+	 * Attribute keys of matched nodes, indexed by node name
+	 */
+	public Map<String, List<String>> getAddedAttributes() {
+		return addedAttributes;
+	}
+
+	public Map<String, List<String>> getRemovedAttributes() {
+		return removedAttributes;
+	}
+
+	public Map<String, List<String>> getChangedAttributes() {
+		return changedAttributes;
+	}
+
+	/**
+	 * Edges of the current version without counterpart, including the
+	 * edges of added nodes
+	 */
+	public List<Edge> getAddedEdges() {
+		return addedEdges;
+	}
+
+	/**
+	 * Edges of the previous version without counterpart, including the
+	 * edges of removed nodes
+	 */
+	public List<Edge> getRemovedEdges() {
+		return removedEdges;
+	}
+
+	/**
+	 * Current version of the edges whose label or target changed
+	 */
+	public List<Edge> getChangedEdges() {
+		return changedEdges;
+	}
+
+	public boolean isEmpty() {
+		return addedNodes.isEmpty() && removedNodes.isEmpty() && changedNodes.isEmpty() &&
+				addedAttributes.isEmpty() && removedAttributes.isEmpty() &&
+				addedEdges.isEmpty() && removedEdges.isEmpty() && changedEdges.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("added nodes %s, removed nodes %s, changed nodes %s, "
+				+ "added edges %s, removed edges %s, changed edges %s",
+				addedNodes, removedNodes, changedNodes, addedEdges, removedEdges, changedEdges);
+	}
+
+	/**
+	 * Edge of one of the compared graphs. Its name and label are the values
+	 * of the "name" and "label" attributes, if present
+	 */
+	public static class Edge {
+
+		protected final String source;
+		protected final String target;
+		protected final String name;
+		protected final String label;
+
+		public Edge(String source, String target, String name, String label) {
+			this.source = source;
+			this.target = target;
+			this.name = name;
+			this.label = label;
+		}
+
+		public String getSource() {
+			return source;
+		}
+
+		/**
+		 * @return The name of the target node, or null if the edge does
+		 *     not point to a node
+		 */
+		public String getTarget() {
+			return target;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s -> %s (%s)", source, target, name);
+		}
+	}
+
+	/**
+	 * Collects the changes while comparing. Its lists are handed over to
+	 * the built result, so a builder cannot be reused
+	 */
+	protected static class Builder {
+
+		protected List<String> addedNodes = new ArrayList<>();
+		protected List<String> removedNodes = new ArrayList<>();
+		protected List<String> changedNodes = new ArrayList<>();
+
+		protected Map<String, List<String>> addedAttributes = new LinkedHashMap<>();
+		protected Map<String, List<String>> removedAttributes = new LinkedHashMap<>();
+		protected Map<String, List<String>> changedAttributes = new LinkedHashMap<>();
+
+		protected List<Edge> addedEdges = new ArrayList<>();
+		protected List<Edge> removedEdges = new ArrayList<>();
+		protected List<Edge> changedEdges = new ArrayList<>();
+
+		protected void addAttribute(Map<String, List<String>> attributes, String node, String key) {
+			attributes.computeIfAbsent(node, n -> new ArrayList<>()).add(key);
+		}
+
+		protected DotDiffResult build() {
+			return new DotDiffResult(this);
+		}
+	}
+}
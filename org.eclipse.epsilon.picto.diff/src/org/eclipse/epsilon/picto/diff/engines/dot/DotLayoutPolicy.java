@@ -0,0 +1,272 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import guru.nidi.graphviz.model.MutableGraph;
+import guru.nidi.graphviz.model.MutableNode;
+
+/**
+ * Chooses how each temp graph is laid out from its size. The default dot
+ * layout is used for small graphs, a force-directed one with straight
+ * edges (sfdp or neato, cheaper than dot on big or dense graphs) for large
+ * graphs, and graphs over the hard limit are not laid out at all but
+ * listed instead.
+ *
+ * Can be configured with the parameters of a .pictodiff (see the
+ * *_PARAMETER constants). The adaptive policy can be disabled to always
+ * use dot, as earlier versions did
+ */
+public class DotLayoutPolicy {
+
+	public static final String ADAPTIVE_LAYOUT_PARAMETER = "adaptiveLayout";
+	public static final String MAX_DOT_NODES_PARAMETER = "maxDotNodes";
+	public static final String MAX_DOT_EDGES_PARAMETER = "maxDotEdges";
+	public static final String MAX_LAYOUT_NODES_PARAMETER = "maxLayoutNodes";
+	public static final String MAX_LAYOUT_EDGES_PARAMETER = "maxLayoutEdges";
+	public static final String LARGE_LAYOUT_PARAMETER = "largeLayout";
+
+	public static final int DEFAULT_MAX_DOT_NODES = 500;
+	// dense graphs go over this one before the node limit
+	public static final int DEFAULT_MAX_DOT_EDGES = 1500;
+	public static final int DEFAULT_MAX_LAYOUT_NODES = 5000;
+	public static final int DEFAULT_MAX_LAYOUT_EDGES = 20000;
+
+	public static final String DOT = "dot";
+	public static final String NEATO = "neato";
+	public static final String SFDP = "sfdp";
+
+	protected boolean adaptive = true;
+	protected int maxDotNodes = DEFAULT_MAX_DOT_NODES;
+	protected int maxDotEdges = DEFAULT_MAX_DOT_EDGES;
+	protected int maxLayoutNodes = DEFAULT_MAX_LAYOUT_NODES;
+	protected int maxLayoutEdges = DEFAULT_MAX_LAYOUT_EDGES;
+	// null to use sfdp when rendering natively (the javascript engine lacks it)
+	protected String largeLayout = null;
+
+	/**
+	 * Policy with the settings present in the parameters, and the default
+	 * values for the rest
+	 */
+	public static DotLayoutPolicy fromParameters(Map<String, String> parameters) {
+		DotLayoutPolicy policy = new DotLayoutPolicy();
+		policy.configure(parameters);
+		return policy;
+	}
+
+	/**
+	 * Change the settings present in the parameters, keeping the rest
+	 */
+	public void configure(Map<String, String> parameters) {
+		String value = parameters.get(ADAPTIVE_LAYOUT_PARAMETER);
+		if (value != null) {
+			setAdaptive(Boolean.parseBoolean(value.trim()));
+		}
+		value = parameters.get(MAX_DOT_NODES_PARAMETER);
+		if (value != null) {
+			setMaxDotNodes(parseInt(MAX_DOT_NODES_PARAMETER, value));
+		}
+		value = parameters.get(MAX_DOT_EDGES_PARAMETER);
+		if (value != null) {
+			setMaxDotEdges(parseInt(MAX_DOT_EDGES_PARAMETER, value));
+		}
+		value = parameters.get(MAX_LAYOUT_NODES_PARAMETER);
+		if (value != null) {
+			setMaxLayoutNodes(parseInt(MAX_LAYOUT_NODES_PARAMETER, value));
+		}
+		value = parameters.get(MAX_LAYOUT_EDGES_PARAMETER);
+		if (value != null) {
+			setMaxLayoutEdges(parseInt(MAX_LAYOUT_EDGES_PARAMETER, value));
+		}
+		value = parameters.get(LARGE_LAYOUT_PARAMETER);
+		if (value != null) {
+			setLargeLayout(value.trim());
+		}
+	}
+
+	/**
+	 * Integer value of a parameter, failing with a message that names it
+	 */
+	static int parseInt(String parameter, String value) {
+		try {
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException(String.format(
+					"Parameter %s must be a number (was %s)", parameter, value), e);
+		}
+	}
+
+	/**
+	 * @param nativeRenderer Whether graphs are rendered by a dot executable,
+	 * only checked for large graphs
+	 */
+	public Layout select(int nodes, int edges, BooleanSupplier nativeRenderer) {
+		if (!adaptive || (nodes <= maxDotNodes && edges <= maxDotEdges)) {
+			return new Layout(DOT, nodes, edges);
+		}
+		if (nodes > maxLayoutNodes || edges > maxLayoutEdges) {
+			return new Layout(null, nodes, edges);
+		}
+		String engine = largeLayout;
+		if (engine == null) {
+			engine = nativeRenderer.getAsBoolean() ? SFDP : NEATO;
+		}
+		return new Layout(engine, nodes, edges);
+	}
+
+	/**
+	 * Number of links in a graph, including the ones of its subgraphs
+	 */
+	public static int countEdges(MutableGraph graph) {
+		int edges = 0;
+		for (MutableNode node : graph.rootNodes()) {
+			edges += node.links().size();
+		}
+		for (MutableGraph subgraph : graph.graphs()) {
+			edges += countEdges(subgraph);
+		}
+		return edges;
+	}
+
+	public void setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	public void setMaxDotNodes(int maxDotNodes) {
+		this.maxDotNodes = checkLimit(maxDotNodes);
+	}
+
+	public int getMaxDotNodes() {
+		return maxDotNodes;
+	}
+
+	public void setMaxDotEdges(int maxDotEdges) {
+		this.maxDotEdges = checkLimit(maxDotEdges);
+	}
+
+	public int getMaxDotEdges() {
+		return maxDotEdges;
+	}
+
+	/**
+	 * Graphs with more nodes are listed instead of laid out
+	 */
+	public void setMaxLayoutNodes(int maxLayoutNodes) {
+		this.maxLayoutNodes = checkLimit(maxLayoutNodes);
+	}
+
+	public int getMaxLayoutNodes() {
+		return maxLayoutNodes;
+	}
+
+	/**
+	 * Graphs with more edges are listed instead of laid out
+	 */
+	public void setMaxLayoutEdges(int maxLayoutEdges) {
+		this.maxLayoutEdges = checkLimit(maxLayoutEdges);
+	}
+
+	public int getMaxLayoutEdges() {
+		return maxLayoutEdges;
+	}
+
+	/**
+	 * Graphviz layout engine used for the graphs too large for dot. By
+	 * default (null), sfdp if rendered natively and neato otherwise
+	 */
+	public void setLargeLayout(String largeLayout) {
+		this.largeLayout = largeLayout;
+	}
+
+	public String getLargeLayout() {
+		return largeLayout;
+	}
+
+	private static int checkLimit(int limit) {
+		if (limit < 0) {
+			throw new IllegalArgumentException(
+					String.format("Layout limits cannot be negative (was %d)", limit));
+		}
+		return limit;
+	}
+
+	/**
+	 * Settings that change the output of the policy, to tell apart the
+	 * diff results produced with different ones
+	 */
+	@Override
+	public String toString() {
+		if (!adaptive) {
+			return DOT;
+		}
+		return String.format("adaptive(%d,%d,%d,%d,%s)", maxDotNodes, maxDotEdges,
+				maxLayoutNodes, maxLayoutEdges, largeLayout);
+	}
+
+	/**
+	 * Layout chosen for a graph
+	 */
+	public static class Layout {
+
+		protected final String engine;
+		protected final int nodes;
+		protected final int edges;
+
+		public Layout(String engine, int nodes, int edges) {
+			this.engine = engine;
+			this.nodes = nodes;
+			this.edges = edges;
+		}
+
+		/**
+		 * @return The graphviz layout engine, or null if the graph is listed
+		 */
+		public String getEngine() {
+			return engine;
+		}
+
+		public boolean isListing() {
+			return engine == null;
+		}
+
+		/**
+		 * Graphs laid out with dot are left as they are
+		 */
+		public boolean isDefault() {
+			return DOT.equals(engine);
+		}
+
+		public int getNodes() {
+			return nodes;
+		}
+
+		public int getEdges() {
+			return edges;
+		}
+
+		/**
+		 * Set the layout engine of the graph, with straight edges (spline
+		 * routing dominates the layout time of large graphs) and no node
+		 * overlaps
+		 */
+		public void apply(MutableGraph graph) {
+			if (isDefault() || isListing()) {
+				return;
+			}
+			graph.graphAttrs().add("layout", engine);
+			graph.graphAttrs().add("splines", "line");
+			graph.graphAttrs().add("overlap", "false");
+		}
+
+		@Override
+		public String toString() {
+			String layout = isListing() ? "listed, too large to lay out" : engine + " layout";
+			return String.format("%s: %d nodes, %d edges", layout, nodes, edges);
+		}
+	}
+}
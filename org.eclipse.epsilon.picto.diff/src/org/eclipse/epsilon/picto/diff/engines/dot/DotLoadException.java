@@ -0,0 +1,29 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+import java.io.IOException;
+
+/**
+ * Failure to load one of the compared graphs, telling which version
+ * (previous or current) could not be read or parsed
+ */
+public class DotLoadException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final String PREVIOUS_VERSION = "previous";
+	public static final String CURRENT_VERSION = "current";
+
+	protected final String version;
+
+	public DotLoadException(String version, Throwable cause) {
+		super(String.format("Cannot load the %s version graph: %s", version, cause.getMessage()), cause);
+		this.version = version;
+	}
+
+	/**
+	 * @return PREVIOUS_VERSION or CURRENT_VERSION
+	 */
+	public String getVersion() {
+		return version;
+	}
+}
@@ -0,0 +1,173 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Renders DOT graphs with a locally installed graphviz executable.
+ *
+ * A dot process only lays a graph out once it reads past its end, so each
+ * process renders a single graph (its input is closed to finish it).
+ * Process start-up is kept out of the way instead: up to size processes
+ * are started ahead and wait for their graph, and a new one is started in
+ * the background whenever one is taken. At most size renderings run at the
+ * same time, and the ones exceeding the timeout are killed
+ */
+public class DotProcessPool {
+
+	public static final int DEFAULT_SIZE = 2;
+	public static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+
+	protected final List<String> command;
+	protected final int size;
+	protected final long timeoutMillis;
+	protected final BlockingQueue<Process> idle;
+	protected final Semaphore running;
+	protected final ExecutorService executor;
+	protected volatile boolean shutdown = false;
+
+	/**
+	 * @param executable Name or path of the dot executable
+	 * @throws IOException If the executable cannot be started
+	 */
+	public DotProcessPool(String executable, int size, long timeoutMillis) throws IOException {
+		if (size < 1) {
+			throw new IllegalArgumentException(
+					String.format("Process pool size must be at least 1 (was %d)", size));
+		}
+		this.command = Arrays.asList(executable, "-Tsvg");
+		this.size = size;
+		this.timeoutMillis = timeoutMillis;
+		idle = new ArrayBlockingQueue<>(size);
+		running = new Semaphore(size);
+		executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "picto-diff-dot");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// fails right away if there is no executable
+		idle.add(start());
+		for (int i = 1; i < size; i++) {
+			replenish();
+		}
+	}
+
+	/**
+	 * @return The SVG output of dot
+	 * @throws IOException If dot fails (e.g. syntax errors) or cannot be run
+	 * @throws TimeoutException If the rendering takes longer than the timeout
+	 */
+	public String render(String dot) throws IOException, TimeoutException, InterruptedException {
+		running.acquire();
+		try {
+			Process process = idle.poll();
+			if (process == null || !process.isAlive()) {
+				process = start();
+			}
+			replenish();
+			Process rendering = process;
+			Future<String> output = executor.submit(() -> execute(rendering, dot));
+			try {
+				return output.get(timeoutMillis, TimeUnit.MILLISECONDS);
+			}
+			catch (TimeoutException e) {
+				output.cancel(true);
+				throw new TimeoutException(String.format(
+						"dot did not finish rendering in %d ms", timeoutMillis));
+			}
+			catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IOException(e.getCause());
+			}
+			finally {
+				rendering.destroyForcibly();
+			}
+		}
+		finally {
+			running.release();
+		}
+	}
+
+	private String execute(Process process, String dot) throws IOException, InterruptedException {
+		// drained meanwhile, dot blocks once the pipe of either output is full
+		Future<String> errors = executor.submit(() -> readAll(process.getErrorStream()));
+		try (OutputStream input = process.getOutputStream()) {
+			input.write(dot.getBytes(StandardCharsets.UTF_8));
+		}
+		String svg = readAll(process.getInputStream());
+		if (process.waitFor() != 0) {
+			try {
+				throw new IOException("dot failed: " + errors.get().trim());
+			}
+			catch (ExecutionException e) {
+				throw new IOException("dot failed", e.getCause());
+			}
+		}
+		return svg;
+	}
+
+	private static String readAll(InputStream stream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		for (int read; (read = stream.read(buffer)) >= 0;) {
+			bytes.write(buffer, 0, read);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	protected Process start() throws IOException {
+		return new ProcessBuilder(command).start();
+	}
+
+	/**
+	 * Start a process in the background if there is room for one more
+	 */
+	private void replenish() {
+		if (shutdown || idle.remainingCapacity() == 0) {
+			return;
+		}
+		executor.execute(() -> {
+			try {
+				Process process = start();
+				if (shutdown || !idle.offer(process)) {
+					process.destroyForcibly();
+				}
+			}
+			catch (IOException e) {
+				// processes are started on demand then
+			}
+		});
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	public void shutdown() {
+		shutdown = true;
+		executor.shutdownNow();
+		for (Process process; (process = idle.poll()) != null;) {
+			process.destroyForcibly();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.epsilon.picto.diff.ContentFingerprint;
+
+/**
+ * In-memory cache of rendered graphs, keyed by the fingerprint of their DOT
+ * serialisation (the text actually passed to graphviz) plus the rendering
+ * scale and format. The same temp graph shows up again when a change appears
+ * under several views or a diff is reopened, and its layout is reused then.
+ *
+ * The least recently used entries are evicted when the cache grows beyond
+ * its maximum size. A single default instance is shared by all engines
+ */
+public class DotRenderCache {
+
+	public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+	private static final DotRenderCache DEFAULT = new DotRenderCache(DEFAULT_MAX_SIZE);
+
+	protected final long maxSize;
+	protected long size = 0;
+	// access-ordered, so that the eldest entry is the least recently used one
+	protected final Map<String, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+	protected AtomicInteger hits = new AtomicInteger();
+	protected AtomicInteger misses = new AtomicInteger();
+	protected AtomicInteger evictions = new AtomicInteger();
+
+	/**
+	 * @param maxSize Maximum size of the cached keys and renderings, in bytes
+	 */
+	public DotRenderCache(long maxSize) {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException(
+					String.format("Render cache size cannot be negative (was %d)", maxSize));
+		}
+		this.maxSize = maxSize;
+	}
+
+	public static DotRenderCache getDefault() {
+		return DEFAULT;
+	}
+
+	public static String getKey(String dot, double scale, String format, String backend) {
+		ContentFingerprint key = new ContentFingerprint();
+		key.updateField(dot);
+		key.updateField(Double.toString(scale));
+		key.updateField(format);
+		key.updateField(backend);
+		return key.finish();
+	}
+
+	/**
+	 * Return the cached rendering for the key, or render and cache it.
+	 * Rendering happens outside the cache lock, so concurrent misses of
+	 * the same key might render it more than once
+	 */
+	public String get(String key, Supplier<String> renderer) {
+		String rendered = get(key);
+		if (rendered == null) {
+			rendered = renderer.get();
+			put(key, rendered);
+		}
+		return rendered;
+	}
+
+	/**
+	 * @return The cached rendering, or null
+	 */
+	public synchronized String get(String key) {
+		String rendered = entries.get(key);
+		if (rendered != null) {
+			hits.incrementAndGet();
+		}
+		else {
+			misses.incrementAndGet();
+		}
+		return rendered;
+	}
+
+	/**
+	 * Renderings bigger than the whole cache are not stored
+	 */
+	public synchronized void put(String key, String rendered) {
+		long entrySize = getSize(key, rendered);
+		if (entrySize > maxSize) {
+			return;
+		}
+		String previous = entries.put(key, rendered);
+		if (previous != null) {
+			size -= getSize(key, previous);
+		}
+		size += entrySize;
+		Iterator<Map.Entry<String, String>> eldest = entries.entrySet().iterator();
+		while (size > maxSize) {
+			Map.Entry<String, String> entry = eldest.next();
+			size -= getSize(entry.getKey(), entry.getValue());
+			eldest.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+
+	private static long getSize(String key, String rendered) {
+		// strings hold (at most) two bytes per char
+		return 2L * (key.length() + rendered.length());
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public synchronized int getEntryCount() {
+		return entries.size();
+	}
+
+	public int getHits() {
+		return hits.get();
+	}
+
+	public int getMisses() {
+		return misses.get();
+	}
+
+	public int getEvictions() {
+		return evictions.get();
+	}
+}
@@ -0,0 +1,103 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed set of threads rendering graphs with graphviz.
+ *
+ * The javascript-based graphviz engines are not thread-safe: graphviz-java
+ * keeps one javascript engine per thread, which is created (and loads the
+ * whole viz.js library) the first time the thread renders something. Long
+ * lived render threads initialise their engine once and reuse it, and no
+ * engine is ever shared by concurrent renderings
+ */
+public class DotRenderPool {
+
+	public static final int DEFAULT_SIZE = 2;
+	// how long the tasks of submitToEach wait for each other
+	private static final long GATHER_TIMEOUT_SECONDS = 10;
+
+	private static DotRenderPool defaultPool;
+
+	protected final ExecutorService executor;
+	protected final int size;
+
+	public DotRenderPool(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException(
+					String.format("Render pool size must be at least 1 (was %d)", size));
+		}
+		this.size = size;
+		AtomicInteger threadCount = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(size, runnable -> {
+			Thread thread = new Thread(runnable, "picto-diff-render-" + threadCount.incrementAndGet());
+			// never keeps the platform alive
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Pool shared by all engines, with one thread per version graph
+	 */
+	public static synchronized DotRenderPool getDefault() {
+		if (defaultPool == null) {
+			defaultPool = new DotRenderPool(DEFAULT_SIZE);
+		}
+		return defaultPool;
+	}
+
+	public Future<String> submit(Callable<String> rendering) {
+		return executor.submit(rendering);
+	}
+
+	/**
+	 * Run a rendering once on every thread of the pool, e.g. to initialise
+	 * their graphviz engines. The renderings wait for each other to start
+	 * (for a while, if the pool is busy), so that no thread runs two
+	 */
+	public List<Future<String>> submitToEach(Callable<String> rendering) {
+		CountDownLatch started = new CountDownLatch(size);
+		List<Future<String>> renderings = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			renderings.add(executor.submit(() -> {
+				started.countDown();
+				started.await(GATHER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+				return rendering.call();
+			}));
+		}
+		return renderings;
+	}
+
+	/**
+	 * Wait for a submitted rendering, rethrowing its failure if any
+	 */
+	public static String get(Future<String> rendering) throws Exception {
+		try {
+			return rendering.get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
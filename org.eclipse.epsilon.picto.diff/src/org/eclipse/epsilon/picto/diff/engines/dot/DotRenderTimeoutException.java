@@ -0,0 +1,21 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+/**
+ * The dot executable did not render a graph within the timeout, and the
+ * embedded engine was not asked to render it instead
+ */
+public class DotRenderTimeoutException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	protected final long timeoutMillis;
+
+	public DotRenderTimeoutException(long timeoutMillis, Throwable cause) {
+		super(String.format("The graph was not rendered within %d ms", timeoutMillis), cause);
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+}
@@ -0,0 +1,326 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.epsilon.picto.diff.PictoDiffPlugin;
+
+import guru.nidi.graphviz.engine.Format;
+import guru.nidi.graphviz.engine.Graphviz;
+
+/**
+ * Renders DOT graphs with the configured graphviz backend: either a locally
+ * installed dot executable (see DotProcessPool) or the engine embedded in
+ * graphviz-java. Native rendering falls back to the embedded engine when
+ * the executable is missing or fails, and when it times out unless told
+ * otherwise. Failures are logged.
+ *
+ * The shared renderers are configured with system properties:
+ * org.eclipse.epsilon.picto.diff.renderer (native or embedded, native by
+ * default), org.eclipse.epsilon.picto.diff.dot (the dot executable) and
+ * org.eclipse.epsilon.picto.diff.dot.timeout (per-render timeout in ms).
+ * Invalid values are logged and replaced by the defaults.
+ * org.eclipse.epsilon.picto.diff.warmup=false disables the warm-up done
+ * when the plugin starts
+ */
+public class DotRenderer {
+
+	public enum Backend {
+		NATIVE, EMBEDDED;
+
+		public static Backend parse(String name) {
+			for (Backend backend : values()) {
+				if (backend.name().equalsIgnoreCase(name.trim())) {
+					return backend;
+				}
+			}
+			throw new IllegalArgumentException(
+					String.format("Unknown rendering backend: %s", name));
+		}
+	}
+
+	public static final String BACKEND_PROPERTY = "org.eclipse.epsilon.picto.diff.renderer";
+	public static final String EXECUTABLE_PROPERTY = "org.eclipse.epsilon.picto.diff.dot";
+	public static final String TIMEOUT_PROPERTY = "org.eclipse.epsilon.picto.diff.dot.timeout";
+	public static final String WARM_UP_PROPERTY = "org.eclipse.epsilon.picto.diff.warmup";
+	public static final String DEFAULT_EXECUTABLE = "dot";
+	public static final String WARM_UP_GRAPH = "digraph { a -> b }";
+
+	private static Backend defaultBackend;
+	private static final Map<Backend, DotRenderer> sharedRenderers = new EnumMap<>(Backend.class);
+
+	// same patterns graphviz-java uses to post-process its svg renderings
+	private static final Pattern SVG_PATTERN = Pattern.compile(
+			"<svg width=\"(?<width>\\d+)(?<unit>p[tx])\" height=\"(?<height>\\d+)p[tx]\""
+					+ "(?<between>.*?>\\R<g.*?)transform=\"scale\\((?<scaleX>[0-9.]+) (?<scaleY>[0-9.]+)\\)",
+			Pattern.DOTALL);
+	private static final Pattern DPI_PATTERN = Pattern.compile(
+			"\"?dpi\"?\\s*=\\s*\"?([0-9.]+)\"?", Pattern.CASE_INSENSITIVE);
+
+	protected final Backend backend;
+	protected final String executable;
+	protected final int poolSize;
+	protected final long timeoutMillis;
+	// started on the first native rendering
+	protected DotProcessPool processPool;
+	protected boolean nativeAvailable = true;
+
+	public DotRenderer(Backend backend, String executable, int poolSize, long timeoutMillis) {
+		this.backend = backend;
+		this.executable = executable;
+		this.poolSize = poolSize;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Shared renderer with the backend of the system properties
+	 */
+	public static synchronized DotRenderer getDefault() {
+		if (defaultBackend == null) {
+			defaultBackend = getBackendProperty();
+		}
+		return getShared(defaultBackend);
+	}
+
+	/**
+	 * Renderer with the given backend shared by all engines, configured
+	 * with the system properties
+	 */
+	public static synchronized DotRenderer getShared(Backend backend) {
+		DotRenderer renderer = sharedRenderers.get(backend);
+		if (renderer == null) {
+			String executable = System.getProperty(EXECUTABLE_PROPERTY, DEFAULT_EXECUTABLE);
+			renderer = new DotRenderer(
+					backend, executable, DotProcessPool.DEFAULT_SIZE, getTimeoutProperty());
+			sharedRenderers.put(backend, renderer);
+		}
+		return renderer;
+	}
+
+	/**
+	 * @return The backend of the system property, native if not set or invalid
+	 */
+	public static Backend getBackendProperty() {
+		String name = System.getProperty(BACKEND_PROPERTY);
+		if (name != null) {
+			try {
+				return Backend.parse(name);
+			}
+			catch (IllegalArgumentException e) {
+				PictoDiffPlugin.logWarning(String.format(
+						"Ignoring %s: %s", BACKEND_PROPERTY, e.getMessage()), e);
+			}
+		}
+		return Backend.NATIVE;
+	}
+
+	/**
+	 * @return The timeout of the system property, the default one if not
+	 * set or not a positive number
+	 */
+	public static long getTimeoutProperty() {
+		String timeout = System.getProperty(TIMEOUT_PROPERTY);
+		if (timeout != null) {
+			try {
+				long value = Long.parseLong(timeout.trim());
+				if (value > 0) {
+					return value;
+				}
+			}
+			catch (NumberFormatException e) {
+				// logged below
+			}
+			PictoDiffPlugin.logWarning(String.format(
+					"Ignoring %s: the timeout must be a positive number of milliseconds (was %s)",
+					TIMEOUT_PROPERTY, timeout), null);
+		}
+		return DotProcessPool.DEFAULT_TIMEOUT_MILLIS;
+	}
+
+	/**
+	 * Stop the dot processes of the shared renderers (they are started
+	 * again if these render more graphs)
+	 */
+	public static synchronized void shutdownShared() {
+		for (DotRenderer renderer : sharedRenderers.values()) {
+			renderer.shutdown();
+		}
+	}
+
+	/**
+	 * Render a graph with the same output as graphviz-java, i.e.
+	 * Graphviz.fromString(dot).scale(scale).render(format)
+	 */
+	public String render(String dot, double scale, Format format) {
+		return render(dot, scale, format, true);
+	}
+
+	/**
+	 * @param timeoutFallback Whether graphs the dot executable does not
+	 * render in time are rendered by the embedded engine instead, which can
+	 * take much longer still
+	 * @throws DotRenderTimeoutException If the graph is not rendered in
+	 * time and there is no fallback
+	 * @throws CancellationException If the rendering thread is interrupted
+	 */
+	public String render(String dot, double scale, Format format, boolean timeoutFallback) {
+		if (format == Format.SVG && isNative()) {
+			try {
+				return postProcessSvg(renderNative(preProcess(dot)), dot, scale);
+			}
+			catch (TimeoutException e) {
+				if (!timeoutFallback) {
+					PictoDiffPlugin.logWarning(e.getMessage(), e);
+					throw new DotRenderTimeoutException(timeoutMillis, e);
+				}
+				PictoDiffPlugin.logWarning(e.getMessage()
+						+ ", rendering the graph with the embedded engine", e);
+			}
+			catch (IOException e) {
+				PictoDiffPlugin.logWarning(
+						"Rendering with the embedded engine after dot failed", e);
+			}
+			catch (InterruptedException e) {
+				// cancelled, not worth a (slower) embedded rendering
+				Thread.currentThread().interrupt();
+				CancellationException cancelled = new CancellationException("Rendering interrupted");
+				cancelled.initCause(e);
+				throw cancelled;
+			}
+		}
+		return renderEmbedded(dot, scale, format);
+	}
+
+	/**
+	 * Render a trivial graph on every thread of the pool the engines render
+	 * with, so that the first diff does not pay for starting the dot
+	 * processes or, with the embedded backend, for initialising the graphviz
+	 * engine of each thread (graphviz-java keeps one per thread). Returns
+	 * right away; failures show up again on the first actual rendering
+	 */
+	public List<Future<String>> warmUp(DotRenderPool pool) {
+		return pool.submitToEach(() -> render(WARM_UP_GRAPH, 1, Format.SVG));
+	}
+
+	public static boolean isWarmUpEnabled() {
+		return Boolean.parseBoolean(System.getProperty(WARM_UP_PROPERTY, "true"));
+	}
+
+	protected String renderNative(String dot)
+			throws IOException, TimeoutException, InterruptedException {
+
+		DotProcessPool pool = getProcessPool();
+		if (pool == null) {
+			throw new IOException("The dot processes have been shut down");
+		}
+		return pool.render(dot);
+	}
+
+	protected String renderEmbedded(String dot, double scale, Format format) {
+		return Graphviz.fromString(dot).scale(scale).render(format).toString();
+	}
+
+	/**
+	 * @return The pool of dot processes, or null if the native backend is
+	 * not selected or the executable cannot be run
+	 */
+	protected synchronized DotProcessPool getProcessPool() {
+		if (backend != Backend.NATIVE || !nativeAvailable) {
+			return null;
+		}
+		if (processPool == null) {
+			try {
+				processPool = new DotProcessPool(executable, poolSize, timeoutMillis);
+			}
+			catch (IOException e) {
+				// not tried again for every rendering
+				nativeAvailable = false;
+				PictoDiffPlugin.logWarning(String.format(
+						"Cannot run %s, rendering graphs with the embedded engine", executable), e);
+			}
+		}
+		return processPool;
+	}
+
+	/**
+	 * Whether graphs are rendered by the dot executable. Only known after
+	 * the first rendering (or a call to this method, which starts the
+	 * processes)
+	 */
+	public boolean isNative() {
+		return getProcessPool() != null;
+	}
+
+	public Backend getBackend() {
+		return backend;
+	}
+
+	/**
+	 * Backend rendering the svg graphs, i.e. the embedded one when the dot
+	 * executable cannot be run (which this method starts)
+	 */
+	public Backend getEffectiveBackend() {
+		return isNative() ? Backend.NATIVE : Backend.EMBEDDED;
+	}
+
+	public String getExecutable() {
+		return executable;
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	public synchronized void shutdown() {
+		if (processPool != null) {
+			processPool.shutdown();
+			processPool = null;
+		}
+	}
+
+	/**
+	 * Replace control characters and escape ampersands, as graphviz-java
+	 * does before rendering svg
+	 */
+	protected static String preProcess(String dot) {
+		char[] chars = dot.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			if (chars[i] < ' ' && chars[i] != '\t' && chars[i] != '\r' && chars[i] != '\n') {
+				chars[i] = ' ';
+			}
+		}
+		return new String(chars).replace("&", "&amp;");
+	}
+
+	/**
+	 * Remove the xml prologue and convert the svg size to scaled pixels,
+	 * as graphviz-java does after rendering
+	 */
+	public static String postProcessSvg(String svg, String dot, double scale) {
+		int start = svg.indexOf("<svg ");
+		if (start > 0) {
+			svg = svg.substring(start);
+		}
+		Matcher m = SVG_PATTERN.matcher(svg);
+		if (!m.find()) {
+			return svg;
+		}
+		double width = Integer.parseInt(m.group("width"));
+		double height = Integer.parseInt(m.group("height"));
+		Matcher dpiMatcher = DPI_PATTERN.matcher(dot);
+		double dpi = dpiMatcher.find() ? Double.parseDouble(dpiMatcher.group(1)) : 72;
+		double pixelScale = m.group("unit").equals("px") ? 1 : Math.round(10000 * dpi / 72) / 10000d;
+		double scaleX = Double.parseDouble(m.group("scaleX")) / pixelScale;
+		double scaleY = Double.parseDouble(m.group("scaleY")) / pixelScale;
+		return m.replaceFirst(Matcher.quoteReplacement("<svg width=\"" + Math.round(width * scale)
+				+ "px\" height=\"" + Math.round(height * scale) + "px\"" + m.group("between")
+				+ "transform=\"scale(" + scaleX + " " + scaleY + ")"));
+	}
+}
@@ -0,0 +1,74 @@
+package org.eclipse.epsilon.picto.diff.engines.dot;
+
+import java.util.Arrays;
+
+import org.eclipse.epsilon.picto.diff.engines.dot.model.IntList;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.LongIntMap;
+import org.eclipse.epsilon.picto.diff.engines.dot.model.StringPool;
+
+import guru.nidi.graphviz.model.MutableNode;
+
+/**
+ * Nodes and links added to one of the temp graphs of a DotDiffEngine,
+ * registered as they are added so that they can be looked up without
+ * traversing the graph and its cluster subgraphs.
+ *
+ * Names are ids of the StringPool of the compared graphs. Nodes are the
+ * copies wrapped in clusters, and links are registered under the name of
+ * their source node (they actually belong to auxiliary nodes sharing that
+ * name, see DotDiffEngine.link)
+ */
+public class TempGraphRegistry {
+
+	protected MutableNode[] nodes = new MutableNode[16];
+	protected IntList nodeNames = new IntList();
+	protected LongIntMap links = new LongIntMap();
+
+	/**
+	 * Only the first copy of each node name is kept
+	 */
+	public void addNode(int nameId, MutableNode copy) {
+		if (nameId >= nodes.length) {
+			nodes = Arrays.copyOf(nodes, Math.max(nodes.length * 2, nameId + 1));
+		}
+		if (nodes[nameId] == null) {
+			nodes[nameId] = copy;
+			nodeNames.add(nameId);
+		}
+	}
+
+	public MutableNode findNode(int nameId) {
+		return nameId != StringPool.NONE && nameId < nodes.length ? nodes[nameId] : null;
+	}
+
+	/**
+	 * Names of the node copies, in order of addition
+	 */
+	public int[] getNodeNames() {
+		return nodeNames.toArray();
+	}
+
+	public boolean isEmpty() {
+		return nodeNames.isEmpty();
+	}
+
+	/**
+	 * Links without a name are not registered
+	 */
+	public void addLink(int sourceNameId, int linkNameId) {
+		if (linkNameId != StringPool.NONE) {
+			links.putIfAbsent(LongIntMap.key(sourceNameId, linkNameId), 0);
+		}
+	}
+
+	public boolean containsLink(int sourceNameId, int linkNameId) {
+		return linkNameId != StringPool.NONE &&
+				links.containsKey(LongIntMap.key(sourceNameId, linkNameId));
+	}
+
+	public void clear() {
+		Arrays.fill(nodes, null);
+		nodeNames.clear();
+		links.clear();
+	}
+}
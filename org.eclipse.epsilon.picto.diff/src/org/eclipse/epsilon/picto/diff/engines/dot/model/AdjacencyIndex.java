@@ -0,0 +1,91 @@
+package org.eclipse.epsilon.picto.diff.engines.dot.model;
+
+/**
+ * Neighbours of each node of a CompactDotGraph, following its edges in
+ * both directions. Stored in compressed sparse row layout like the graph:
+ * the neighbours of node n are at positions [offsets[n], offsets[n + 1])
+ * of neighbours. Edges not pointing to a node are left out
+ */
+public class AdjacencyIndex {
+
+	protected final int[] offsets;
+	protected final int[] neighbours;
+
+	public AdjacencyIndex(CompactDotGraph graph) {
+		int nodeCount = graph.nodeCount();
+		offsets = new int[nodeCount + 1];
+		for (int edge = 0; edge < graph.edgeCount(); edge++) {
+			int target = graph.getEdgeTarget(edge);
+			if (target != CompactDotGraph.NONE) {
+				offsets[graph.getEdgeSource(edge) + 1]++;
+				offsets[target + 1]++;
+			}
+		}
+		for (int node = 0; node < nodeCount; node++) {
+			offsets[node + 1] += offsets[node];
+		}
+		neighbours = new int[offsets[nodeCount]];
+		int[] next = new int[nodeCount];
+		System.arraycopy(offsets, 0, next, 0, nodeCount);
+		for (int edge = 0; edge < graph.edgeCount(); edge++) {
+			int target = graph.getEdgeTarget(edge);
+			if (target != CompactDotGraph.NONE) {
+				int source = graph.getEdgeSource(edge);
+				neighbours[next[source]++] = target;
+				neighbours[next[target]++] = source;
+			}
+		}
+	}
+
+	public int neighboursStart(int node) {
+		return offsets[node];
+	}
+
+	public int neighboursEnd(int node) {
+		return offsets[node + 1];
+	}
+
+	public int getNeighbour(int position) {
+		return neighbours[position];
+	}
+
+	/**
+	 * Breadth-first search from the seed nodes, nearest nodes first
+	 *
+	 * @param radius Maximum distance (in edges) to the seeds
+	 * @param budget Maximum number of nodes returned
+	 * @return The nodes within the radius that are not seeds, in order of
+	 * distance, at most budget of them
+	 */
+	public int[] neighbourhood(IntList seeds, int radius, int budget) {
+		boolean[] visited = new boolean[offsets.length - 1];
+		IntList frontier = new IntList();
+		for (int i = 0; i < seeds.size(); i++) {
+			if (!visited[seeds.get(i)]) {
+				visited[seeds.get(i)] = true;
+				frontier.add(seeds.get(i));
+			}
+		}
+		IntList reached = new IntList();
+		for (int distance = 1; distance <= radius && !frontier.isEmpty(); distance++) {
+			IntList nextFrontier = new IntList();
+			for (int i = 0; i < frontier.size(); i++) {
+				int node = frontier.get(i);
+				for (int position = offsets[node]; position < offsets[node + 1]; position++) {
+					int neighbour = neighbours[position];
+					if (visited[neighbour]) {
+						continue;
+					}
+					if (reached.size() == budget) {
+						return reached.toArray();
+					}
+					visited[neighbour] = true;
+					reached.add(neighbour);
+					nextFrontier.add(neighbour);
+				}
+			}
+			frontier = nextFrontier;
+		}
+		return reached.toArray();
+	}
+}
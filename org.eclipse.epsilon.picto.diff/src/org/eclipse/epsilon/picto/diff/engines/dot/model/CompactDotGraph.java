@@ -0,0 +1,402 @@
+package org.eclipse.epsilon.picto.diff.engines.dot.model;
+
+import static guru.nidi.graphviz.model.Factory.mutNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import guru.nidi.graphviz.attribute.Label;
+import guru.nidi.graphviz.model.Compass;
+import guru.nidi.graphviz.model.Link;
+import guru.nidi.graphviz.model.LinkSource;
+import guru.nidi.graphviz.model.LinkTarget;
+import guru.nidi.graphviz.model.MutableGraph;
+import guru.nidi.graphviz.model.MutableNode;
+import guru.nidi.graphviz.model.PortNode;
+
+/**
+ * Read-only, int-indexed view of a DOT graph used for comparisons.
+ *
+ * Nodes are numbered from 0 in order of appearance, and names, attribute
+ * keys and attribute values are ids of a StringPool (shared by the compared
+ * graphs). Attributes and edges are stored in compressed sparse row layout:
+ * the attributes of node n are at positions [attributesStart(n),
+ * attributesEnd(n)), and the same applies to its outgoing edges and to the
+ * attributes of each edge.
+ *
+ * Graphviz nodes and links are only created for the elements that are
+ * requested (e.g. the ones rendered in the end), the same way the
+ * graphviz-java parser creates them. Graphs built from graphviz objects keep
+ * their original elements instead
+ */
+public class CompactDotGraph {
+
+	public static final int NONE = StringPool.NONE;
+
+	/** Edge pointing to a node */
+	public static final int TARGET_NODE = 0;
+	/** Edge pointing to a node through one of its ports */
+	public static final int TARGET_PORT = 1;
+	/** Edge pointing to something else (e.g. a subgraph) */
+	public static final int TARGET_OTHER = 2;
+
+	// attributes holding labels, which graphviz-java handles as Label objects
+	private static final String[] LABEL_KEYS = {"label", "xlabel", "headlabel", "taillabel"};
+
+	protected StringPool pool;
+	protected int nameKey;
+	protected int labelKey;
+	protected int[] labelKeys;
+
+	protected int[] nodeNames;
+	protected LongIntMap nodesByName;
+	protected MutableNode[] nodeOrigins;
+
+	protected int[] attrOffsets;
+	protected int[] attrKeys;
+	protected int[] attrValues;
+	protected boolean[] attrHtml;
+
+	protected int[] graphAttrKeys;
+	protected int[] graphAttrValues;
+	protected boolean[] graphAttrHtml;
+
+	protected int[] edgeOffsets;
+	protected int[] edgeSources;
+	protected int[] edgeTargets;
+	protected byte[] edgeTargetKinds;
+	// source record, source compass, target record and target compass of each edge
+	protected int[] edgePorts;
+	protected Link[] edgeOrigins;
+	protected int[] edgeNames;
+	protected int[] edgeLabels;
+	// (source node, edge name) -> first edge with that name
+	protected LongIntMap edgesByName;
+
+	protected int[] edgeAttrOffsets;
+	protected int[] edgeAttrKeys;
+	protected int[] edgeAttrValues;
+
+	protected CompactDotGraph(StringPool pool) {
+		internKeys(pool);
+	}
+
+	private void internKeys(StringPool pool) {
+		this.pool = pool;
+		nameKey = pool.intern("name");
+		labelKey = pool.intern("label");
+		labelKeys = new int[LABEL_KEYS.length];
+		for (int i = 0; i < LABEL_KEYS.length; i++) {
+			labelKeys[i] = pool.intern(LABEL_KEYS[i]);
+		}
+	}
+
+	/**
+	 * Build the compact version of a graph, keeping its elements as origins.
+	 * Nodes are numbered in the order of graph.nodes()
+	 */
+	public static CompactDotGraph fromGraph(MutableGraph graph, StringPool pool) {
+		CompactDotGraphBuilder builder = new CompactDotGraphBuilder(pool);
+		for (Entry<String, Object> attr : graph.graphAttrs()) {
+			builder.graphAttribute(attr.getKey(), attr.getValue().toString(), isHtml(attr.getValue()));
+		}
+		List<MutableNode> pending = new ArrayList<>();
+		for (MutableNode node : graph.nodes()) {
+			addOrigin(builder, node, pending);
+		}
+		// pending grows with link targets that are not part of graph.nodes()
+		for (int i = 0; i < pending.size(); i++) {
+			MutableNode node = pending.get(i);
+			int nodeId = builder.node(node.name().value());
+			for (Entry<String, Object> attr : node.attrs()) {
+				builder.nodeAttribute(nodeId,
+						attr.getKey(), attr.getValue().toString(), isHtml(attr.getValue()));
+			}
+			for (Link link : node.links()) {
+				LinkTarget to = link.to();
+				int target = NONE;
+				int targetKind = TARGET_OTHER;
+				if (to instanceof PortNode) {
+					LinkSource portOwner = ((PortNode) to).node();
+					target = portOwner instanceof MutableNode
+							? addOrigin(builder, (MutableNode) portOwner, pending)
+							: builder.node(((PortNode) to).name().toString());
+					targetKind = TARGET_PORT;
+				}
+				else if (to instanceof MutableNode) {
+					target = addOrigin(builder, (MutableNode) to, pending);
+					targetKind = TARGET_NODE;
+				}
+				int edge = builder.edge(nodeId, target, targetKind);
+				builder.edgeOrigin(edge, link);
+				for (Entry<String, Object> attr : link.attrs()) {
+					builder.edgeAttribute(edge, attr.getKey(), attr.getValue().toString());
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Only the first node of each name is kept
+	 */
+	private static int addOrigin(CompactDotGraphBuilder builder,
+			MutableNode node, List<MutableNode> pending) {
+
+		int nodeId = builder.node(node.name().value());
+		if (builder.getNodeOrigin(nodeId) == null) {
+			builder.nodeOrigin(nodeId, node);
+			pending.add(node);
+		}
+		return nodeId;
+	}
+
+	private static boolean isHtml(Object value) {
+		return value instanceof Label && ((Label) value).isHtml();
+	}
+
+	/**
+	 * Fill the name and label of each edge, and index edges by name
+	 */
+	protected void indexEdges() {
+		int edgeCount = edgeTargets.length;
+		edgeNames = new int[edgeCount];
+		edgeLabels = new int[edgeCount];
+		edgesByName = new LongIntMap(edgeCount);
+		for (int node = 0; node < nodeCount(); node++) {
+			for (int edge = edgesStart(node); edge < edgesEnd(node); edge++) {
+				edgeNames[edge] = findEdgeAttribute(edge, nameKey);
+				edgeLabels[edge] = findEdgeAttribute(edge, labelKey);
+				if (edgeNames[edge] != NONE) {
+					edgesByName.putIfAbsent(LongIntMap.key(node, edgeNames[edge]), edge);
+				}
+			}
+		}
+	}
+
+	public StringPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Move the graph to another pool, translating all its ids. This allows
+	 * building graphs concurrently, each one with a pool of its own, and
+	 * then sharing a pool to compare them
+	 */
+	public void changePool(StringPool newPool) {
+		int[] ids = newPool.internAll(pool);
+		translate(nodeNames, ids);
+		translate(attrKeys, ids);
+		translate(attrValues, ids);
+		translate(graphAttrKeys, ids);
+		translate(graphAttrValues, ids);
+		translate(edgePorts, ids);
+		translate(edgeAttrKeys, ids);
+		translate(edgeAttrValues, ids);
+		internKeys(newPool);
+		nodesByName = new LongIntMap(nodeNames.length);
+		for (int node = 0; node < nodeNames.length; node++) {
+			nodesByName.putIfAbsent(nodeNames[node], node);
+		}
+		indexEdges();
+	}
+
+	private static void translate(int[] values, int[] ids) {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != NONE) {
+				values[i] = ids[values[i]];
+			}
+		}
+	}
+
+	public int nodeCount() {
+		return nodeNames.length;
+	}
+
+	public int edgeCount() {
+		return edgeTargets.length;
+	}
+
+	public int getNodeName(int node) {
+		return nodeNames[node];
+	}
+
+	/**
+	 * @return The node with the given name id, or NONE
+	 */
+	public int findNode(int nameId) {
+		return nameId != NONE ? nodesByName.get(nameId) : NONE;
+	}
+
+	public int findNode(String name) {
+		return findNode(pool.find(name));
+	}
+
+	/**
+	 * Graphviz version of the node, without links. It is created on the
+	 * first request, and the same instance is returned afterwards
+	 */
+	public MutableNode getNode(int node) {
+		if (nodeOrigins[node] == null) {
+			MutableNode result = mutNode(pool.get(nodeNames[node]));
+			for (int attr = attrOffsets[node]; attr < attrOffsets[node + 1]; attr++) {
+				result.add(pool.get(attrKeys[attr]),
+						getAttributeObject(attrKeys[attr], attrValues[attr], attrHtml[attr]));
+			}
+			nodeOrigins[node] = result;
+		}
+		return nodeOrigins[node];
+	}
+
+	/**
+	 * Copy the graph attributes to another graph
+	 */
+	public void applyGraphAttributes(MutableGraph graph) {
+		for (int attr = 0; attr < graphAttrKeys.length; attr++) {
+			graph.graphAttrs().add(pool.get(graphAttrKeys[attr]),
+					getAttributeObject(graphAttrKeys[attr], graphAttrValues[attr], graphAttrHtml[attr]));
+		}
+	}
+
+	/**
+	 * Label attributes are Label objects and the rest are strings, as
+	 * the graphviz-java parser does
+	 */
+	protected Object getAttributeObject(int keyId, int valueId, boolean html) {
+		String value = pool.get(valueId);
+		for (int labelKeyId : labelKeys) {
+			if (keyId == labelKeyId) {
+				return html ? Label.html(value) : Label.of(value);
+			}
+		}
+		return value;
+	}
+
+	public int attributesStart(int node) {
+		return attrOffsets[node];
+	}
+
+	public int attributesEnd(int node) {
+		return attrOffsets[node + 1];
+	}
+
+	public int getAttributeKey(int attr) {
+		return attrKeys[attr];
+	}
+
+	public int getAttributeValue(int attr) {
+		return attrValues[attr];
+	}
+
+	/**
+	 * @return The value id of the node attribute, or NONE
+	 */
+	public int findAttribute(int node, int keyId) {
+		for (int attr = attrOffsets[node]; attr < attrOffsets[node + 1]; attr++) {
+			if (attrKeys[attr] == keyId) {
+				return attrValues[attr];
+			}
+		}
+		return NONE;
+	}
+
+	public int getEdgeSource(int edge) {
+		return edgeSources[edge];
+	}
+
+	public int edgesStart(int node) {
+		return edgeOffsets[node];
+	}
+
+	public int edgesEnd(int node) {
+		return edgeOffsets[node + 1];
+	}
+
+	/**
+	 * @return The target node of the edge, or NONE if it does not point to a node
+	 */
+	public int getEdgeTarget(int edge) {
+		return edgeTargets[edge];
+	}
+
+	/**
+	 * @return One of the TARGET_ constants
+	 */
+	public int getEdgeTargetKind(int edge) {
+		return edgeTargetKinds[edge];
+	}
+
+	/**
+	 * @return The id of the "name" attribute of the edge, or NONE
+	 */
+	public int getEdgeName(int edge) {
+		return edgeNames[edge];
+	}
+
+	/**
+	 * @return The id of the "label" attribute of the edge, or NONE
+	 */
+	public int getEdgeLabel(int edge) {
+		return edgeLabels[edge];
+	}
+
+	/**
+	 * @return The first edge of the node with the given name id, or NONE
+	 */
+	public int findEdge(int node, int nameId) {
+		return nameId != NONE ? edgesByName.get(LongIntMap.key(node, nameId)) : NONE;
+	}
+
+	/**
+	 * Graphviz version of the edge, created on the first request like
+	 * nodes are (its source and target are the graphviz versions of the
+	 * edge nodes, but the link is not added to the source node)
+	 */
+	public Link getLink(int edge) {
+		if (edgeOrigins[edge] == null) {
+			MutableNode source = getNode(edgeSources[edge]);
+			LinkTarget target = getNode(edgeTargets[edge]);
+			if (edgeTargetKinds[edge] == TARGET_PORT) {
+				target = getNode(edgeTargets[edge]).port(
+						pool.get(edgePorts[edge * 4 + 2]), getCompass(edgePorts[edge * 4 + 3]));
+			}
+			Link result = source.port(
+					pool.get(edgePorts[edge * 4]), getCompass(edgePorts[edge * 4 + 1])).linkTo(target);
+			for (int attr = edgeAttrOffsets[edge]; attr < edgeAttrOffsets[edge + 1]; attr++) {
+				result.attrs().add(pool.get(edgeAttrKeys[attr]), pool.get(edgeAttrValues[attr]));
+			}
+			edgeOrigins[edge] = result;
+		}
+		return edgeOrigins[edge];
+	}
+
+	private Compass getCompass(int compassId) {
+		return compassId != NONE ? Compass.of(pool.get(compassId)).orElse(null) : null;
+	}
+
+	public int edgeAttributesStart(int edge) {
+		return edgeAttrOffsets[edge];
+	}
+
+	public int edgeAttributesEnd(int edge) {
+		return edgeAttrOffsets[edge + 1];
+	}
+
+	public int getEdgeAttributeKey(int attr) {
+		return edgeAttrKeys[attr];
+	}
+
+	public int getEdgeAttributeValue(int attr) {
+		return edgeAttrValues[attr];
+	}
+
+	public int findEdgeAttribute(int edge, int keyId) {
+		for (int attr = edgeAttrOffsets[edge]; attr < edgeAttrOffsets[edge + 1]; attr++) {
+			if (edgeAttrKeys[attr] == keyId) {
+				return edgeAttrValues[attr];
+			}
+		}
+		return NONE;
+	}
+}
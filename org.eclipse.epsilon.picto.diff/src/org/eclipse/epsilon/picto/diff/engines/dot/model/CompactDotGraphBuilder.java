@@ -0,0 +1,323 @@
+package org.eclipse.epsilon.picto.diff.engines.dot.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import guru.nidi.graphviz.model.Link;
+import guru.nidi.graphviz.model.MutableNode;
+
+/**
+ * Collects node, edge and attribute events in any order and builds a
+ * CompactDotGraph from them.
+ *
+ * Nodes are identified by name (the first event mentioning a node creates
+ * it), edges keep their order of addition per source node, and a repeated
+ * attribute key keeps its first position with the last value set
+ */
+public class CompactDotGraphBuilder {
+
+	protected StringPool pool;
+
+	protected IntList nodeNames = new IntList();
+	protected LongIntMap nodesByName = new LongIntMap();
+	protected List<MutableNode> nodeOrigins = new ArrayList<>();
+
+	protected IntList attrNodes = new IntList();
+	protected IntList attrKeys = new IntList();
+	protected IntList attrValues = new IntList();
+	protected IntList attrHtml = new IntList();
+
+	protected IntList graphAttrKeys = new IntList();
+	protected IntList graphAttrValues = new IntList();
+	protected IntList graphAttrHtml = new IntList();
+
+	protected IntList edgeSources = new IntList();
+	protected IntList edgeTargets = new IntList();
+	protected IntList edgeTargetKinds = new IntList();
+	protected IntList edgeSourceRecords = new IntList();
+	protected IntList edgeSourceCompasses = new IntList();
+	protected IntList edgeTargetRecords = new IntList();
+	protected IntList edgeTargetCompasses = new IntList();
+	protected List<Link> edgeOrigins = new ArrayList<>();
+
+	protected IntList edgeAttrEdges = new IntList();
+	protected IntList edgeAttrKeys = new IntList();
+	protected IntList edgeAttrValues = new IntList();
+
+	public CompactDotGraphBuilder(StringPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @return The id of the node with the given name, created if needed
+	 */
+	public int node(String name) {
+		return node(pool.intern(name));
+	}
+
+	/**
+	 * @see #node(String)
+	 */
+	public int node(int nameId) {
+		int node = nodeNames.size();
+		int existing = nodesByName.putIfAbsent(nameId, node);
+		if (existing != LongIntMap.MISSING) {
+			return existing;
+		}
+		nodeNames.add(nameId);
+		nodeOrigins.add(null);
+		return node;
+	}
+
+	public int nodeCount() {
+		return nodeNames.size();
+	}
+
+	public void nodeAttribute(int node, String key, String value) {
+		nodeAttribute(node, key, value, false);
+	}
+
+	/**
+	 * @param html Whether the value is an HTML string (i.e. written
+	 *     between angle brackets)
+	 */
+	public void nodeAttribute(int node, String key, String value, boolean html) {
+		nodeAttribute(node, pool.intern(key), pool.intern(value), html);
+	}
+
+	public void nodeAttribute(int node, int keyId, int valueId, boolean html) {
+		attrNodes.add(node);
+		attrKeys.add(keyId);
+		attrValues.add(valueId);
+		attrHtml.add(html ? 1 : 0);
+	}
+
+	/**
+	 * Original node the compact one is built from, if any
+	 */
+	public void nodeOrigin(int node, MutableNode origin) {
+		nodeOrigins.set(node, origin);
+	}
+
+	public MutableNode getNodeOrigin(int node) {
+		return nodeOrigins.get(node);
+	}
+
+	public void graphAttribute(String key, String value, boolean html) {
+		graphAttribute(pool.intern(key), pool.intern(value), html);
+	}
+
+	public void graphAttribute(int keyId, int valueId, boolean html) {
+		graphAttrKeys.add(keyId);
+		graphAttrValues.add(valueId);
+		graphAttrHtml.add(html ? 1 : 0);
+	}
+
+	/**
+	 * @param target Target node id, or CompactDotGraph.NONE if the edge does
+	 *     not point to a node
+	 * @param targetKind One of the CompactDotGraph TARGET_ constants
+	 * @return The id of the edge in this builder
+	 */
+	public int edge(int source, int target, int targetKind) {
+		edgeSources.add(source);
+		edgeTargets.add(target);
+		edgeTargetKinds.add(targetKind);
+		edgeSourceRecords.add(StringPool.NONE);
+		edgeSourceCompasses.add(StringPool.NONE);
+		edgeTargetRecords.add(StringPool.NONE);
+		edgeTargetCompasses.add(StringPool.NONE);
+		edgeOrigins.add(null);
+		return edgeSources.size() - 1;
+	}
+
+	/**
+	 * Port of the source node the edge leaves from
+	 *
+	 * @param record Record field name, or null
+	 * @param compass Compass point (e.g. "ne"), or null
+	 */
+	public void edgeSourcePort(int edge, String record, String compass) {
+		edgeSourcePort(edge, internNullable(record), internNullable(compass));
+	}
+
+	/**
+	 * @param recordId Record field name id, or StringPool.NONE
+	 * @param compassId Compass point id, or StringPool.NONE
+	 */
+	public void edgeSourcePort(int edge, int recordId, int compassId) {
+		edgeSourceRecords.set(edge, recordId);
+		edgeSourceCompasses.set(edge, compassId);
+	}
+
+	/**
+	 * Port of the target node the edge arrives to
+	 *
+	 * @see #edgeSourcePort(int, String, String)
+	 */
+	public void edgeTargetPort(int edge, String record, String compass) {
+		edgeTargetPort(edge, internNullable(record), internNullable(compass));
+	}
+
+	/**
+	 * @see #edgeSourcePort(int, int, int)
+	 */
+	public void edgeTargetPort(int edge, int recordId, int compassId) {
+		edgeTargetRecords.set(edge, recordId);
+		edgeTargetCompasses.set(edge, compassId);
+	}
+
+	public void edgeAttribute(int edge, String key, String value) {
+		edgeAttribute(edge, pool.intern(key), pool.intern(value));
+	}
+
+	public void edgeAttribute(int edge, int keyId, int valueId) {
+		edgeAttrEdges.add(edge);
+		edgeAttrKeys.add(keyId);
+		edgeAttrValues.add(valueId);
+	}
+
+	public void edgeOrigin(int edge, Link origin) {
+		edgeOrigins.set(edge, origin);
+	}
+
+	public CompactDotGraph build() {
+		CompactDotGraph graph = new CompactDotGraph(pool);
+		int nodeCount = nodeNames.size();
+		graph.nodeNames = nodeNames.toArray();
+		graph.nodesByName = nodesByName;
+		graph.nodeOrigins = nodeOrigins.toArray(new MutableNode[nodeCount]);
+
+		int[] attrOrder = sortByOwner(attrNodes, nodeCount);
+		graph.attrOffsets = new int[nodeCount + 1];
+		int[][] attrs = mergeAttributes(attrOrder,
+				attrNodes, attrKeys, attrValues, attrHtml, graph.attrOffsets);
+		graph.attrKeys = attrs[0];
+		graph.attrValues = attrs[1];
+		graph.attrHtml = toFlags(attrs[2]);
+
+		IntList graphAttrOwners = new IntList(graphAttrKeys.size());
+		for (int i = 0; i < graphAttrKeys.size(); i++) {
+			graphAttrOwners.add(0);
+		}
+		int[][] graphAttrs = mergeAttributes(sortByOwner(graphAttrOwners, 1), graphAttrOwners,
+				graphAttrKeys, graphAttrValues, graphAttrHtml, new int[2]);
+		graph.graphAttrKeys = graphAttrs[0];
+		graph.graphAttrValues = graphAttrs[1];
+		graph.graphAttrHtml = toFlags(graphAttrs[2]);
+
+		// edges are sorted by source, and their attributes by edge position
+		int edgeCount = edgeSources.size();
+		int[] edgeOrder = sortByOwner(edgeSources, nodeCount);
+		graph.edgeOffsets = offsets(edgeSources, nodeCount);
+		graph.edgeSources = new int[edgeCount];
+		graph.edgeTargets = new int[edgeCount];
+		graph.edgeTargetKinds = new byte[edgeCount];
+		graph.edgePorts = new int[edgeCount * 4];
+		graph.edgeOrigins = new Link[edgeCount];
+		int[] edgePositions = new int[edgeCount];
+		for (int position = 0; position < edgeCount; position++) {
+			int edge = edgeOrder[position];
+			edgePositions[edge] = position;
+			graph.edgeSources[position] = edgeSources.get(edge);
+			graph.edgeTargets[position] = edgeTargets.get(edge);
+			graph.edgeTargetKinds[position] = (byte) edgeTargetKinds.get(edge);
+			graph.edgePorts[position * 4] = edgeSourceRecords.get(edge);
+			graph.edgePorts[position * 4 + 1] = edgeSourceCompasses.get(edge);
+			graph.edgePorts[position * 4 + 2] = edgeTargetRecords.get(edge);
+			graph.edgePorts[position * 4 + 3] = edgeTargetCompasses.get(edge);
+			graph.edgeOrigins[position] = edgeOrigins.get(edge);
+		}
+		IntList edgeAttrPositions = new IntList(edgeAttrEdges.size());
+		for (int i = 0; i < edgeAttrEdges.size(); i++) {
+			edgeAttrPositions.add(edgePositions[edgeAttrEdges.get(i)]);
+		}
+		int[] edgeAttrOrder = sortByOwner(edgeAttrPositions, edgeCount);
+		graph.edgeAttrOffsets = new int[edgeCount + 1];
+		int[][] edgeAttrs = mergeAttributes(edgeAttrOrder,
+				edgeAttrPositions, edgeAttrKeys, edgeAttrValues, null, graph.edgeAttrOffsets);
+		graph.edgeAttrKeys = edgeAttrs[0];
+		graph.edgeAttrValues = edgeAttrs[1];
+
+		graph.indexEdges();
+		return graph;
+	}
+
+	private static boolean[] toFlags(int[] values) {
+		boolean[] flags = new boolean[values.length];
+		for (int i = 0; i < values.length; i++) {
+			flags[i] = values[i] != 0;
+		}
+		return flags;
+	}
+
+	private int internNullable(String value) {
+		return value != null ? pool.intern(value) : StringPool.NONE;
+	}
+
+	/**
+	 * Stable counting sort of element indexes by owner
+	 */
+	private static int[] sortByOwner(IntList owners, int ownerCount) {
+		int[] next = offsets(owners, ownerCount);
+		int[] order = new int[owners.size()];
+		for (int i = 0; i < owners.size(); i++) {
+			order[next[owners.get(i)]++] = i;
+		}
+		return order;
+	}
+
+	private static int[] offsets(IntList owners, int ownerCount) {
+		int[] offsets = new int[ownerCount + 1];
+		for (int i = 0; i < owners.size(); i++) {
+			offsets[owners.get(i) + 1]++;
+		}
+		for (int owner = 0; owner < ownerCount; owner++) {
+			offsets[owner + 1] += offsets[owner];
+		}
+		return offsets;
+	}
+
+	/**
+	 * Lay out sorted attributes, merging repeated keys of the same owner,
+	 * and fill the offsets of the owners in the merged layout
+	 *
+	 * @param flags Per attribute flags to keep with the values, or null
+	 * @return The keys, values and flags (if any) arrays
+	 */
+	private static int[][] mergeAttributes(int[] order,
+			IntList owners, IntList keys, IntList values, IntList flags, int[] offsets) {
+
+		int[] mergedKeys = new int[order.length];
+		int[] mergedValues = new int[order.length];
+		int[] mergedFlags = new int[flags != null ? order.length : 0];
+		LongIntMap positions = new LongIntMap(order.length);
+		int size = 0;
+		int owner = 0;
+		for (int i = 0; i < order.length; i++) {
+			int attr = order[i];
+			int attrOwner = owners.get(attr);
+			while (owner < attrOwner) {
+				offsets[++owner] = size;
+			}
+			int position = positions.putIfAbsent(
+					LongIntMap.key(attrOwner, keys.get(attr)), size);
+			if (position == LongIntMap.MISSING) {
+				mergedKeys[size] = keys.get(attr);
+				position = size++;
+			}
+			mergedValues[position] = values.get(attr);
+			if (flags != null) {
+				mergedFlags[position] = flags.get(attr);
+			}
+		}
+		while (owner < offsets.length - 1) {
+			offsets[++owner] = size;
+		}
+		return new int[][] {
+				Arrays.copyOf(mergedKeys, size),
+				Arrays.copyOf(mergedValues, size),
+				Arrays.copyOf(mergedFlags, flags != null ? size : 0)};
+	}
+}
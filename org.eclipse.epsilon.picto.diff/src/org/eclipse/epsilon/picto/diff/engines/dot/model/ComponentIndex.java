@@ -0,0 +1,63 @@
+package org.eclipse.epsilon.picto.diff.engines.dot.model;
+
+import java.util.Arrays;
+
+/**
+ * Weakly connected components of a set of graphs sharing a StringPool,
+ * with nodes identified by name: nodes named alike in different graphs
+ * are the same node, so components are matched across the graphs. Kept
+ * as a union-find over name ids
+ */
+public class ComponentIndex {
+
+	protected final int[] parents;
+
+	public ComponentIndex(CompactDotGraph... graphs) {
+		parents = new int[graphs[0].getPool().size()];
+		Arrays.fill(parents, -1);
+		for (CompactDotGraph graph : graphs) {
+			for (int node = 0; node < graph.nodeCount(); node++) {
+				int name = graph.getNodeName(node);
+				if (parents[name] == -1) {
+					parents[name] = name;
+				}
+			}
+			for (int edge = 0; edge < graph.edgeCount(); edge++) {
+				int target = graph.getEdgeTarget(edge);
+				if (target != CompactDotGraph.NONE) {
+					union(graph.getNodeName(graph.getEdgeSource(edge)), graph.getNodeName(target));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The name id representing the component of a node name, or
+	 * NONE if no graph has a node with that name
+	 */
+	public int getComponent(int nameId) {
+		if (nameId < 0 || nameId >= parents.length || parents[nameId] == -1) {
+			return StringPool.NONE;
+		}
+		int root = nameId;
+		while (parents[root] != root) {
+			root = parents[root];
+		}
+		// path compression
+		while (parents[nameId] != root) {
+			int next = parents[nameId];
+			parents[nameId] = root;
+			nameId = next;
+		}
+		return root;
+	}
+
+	private void union(int first, int second) {
+		int firstRoot = getComponent(first);
+		int secondRoot = getComponent(second);
+		if (firstRoot != secondRoot) {
+			// the smaller id is kept as root, so roots do not depend on the order
+			parents[Math.max(firstRoot, secondRoot)] = Math.min(firstRoot, secondRoot);
+		}
+	}
+}
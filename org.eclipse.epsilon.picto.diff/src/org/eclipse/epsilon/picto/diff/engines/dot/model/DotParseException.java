@@ -0,0 +1,28 @@
+package org.eclipse.epsilon.picto.diff.engines.dot.model;
+
+import java.io.IOException;
+
+/**
+ * Syntax error found when parsing a DOT graph
+ */
+public class DotParseException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	protected int line;
+	protected int column;
+
+	public DotParseException(String message, int line, int column) {
+		super(String.format("%s (line %d, column %d)", message, line, column));
+		this.line = line;
+		this.column = column;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public int getColumn() {
+		return column;
+	}
+}
@@ -0,0 +1,341 @@
+package org.eclipse.epsilon.picto.diff.engines.dot.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parses DOT graphs from a Reader as a stream of tokens, turning each
+ * statement into node, edge and attribute events of a CompactDotGraphBuilder.
+ * No intermediate object graph is created, so memory use is bounded by the
+ * size of the compact graph.
+ *
+ * The contents of subgraphs belong to the parsed graph (as in graphviz),
+ * with their own node and edge defaults, and edges from or to a subgraph
+ * connect all of its nodes. Attributes of subgraphs themselves are ignored
+ */
+public class DotStreamParser {
+
+	private static final List<String> COMPASS_POINTS =
+			Arrays.asList("n", "ne", "e", "se", "s", "sw", "w", "nw", "c", "_");
+
+	protected StringPool pool;
+	protected int trueId;
+	protected DotTokenizer tokenizer;
+	protected CompactDotGraphBuilder builder;
+
+	/**
+	 * @param pool Pool shared by the graphs that are going to be compared
+	 */
+	public DotStreamParser(StringPool pool) {
+		this.pool = pool;
+		this.trueId = pool.intern("true");
+	}
+
+	public CompactDotGraph parse(Path file) throws IOException {
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			return parse(reader);
+		}
+	}
+
+	/**
+	 * The reader is not closed after parsing
+	 */
+	public CompactDotGraph parse(Reader reader) throws IOException {
+		tokenizer = new DotTokenizer(reader);
+		builder = new CompactDotGraphBuilder(pool);
+		tokenizer.next();
+		if (tokenizer.getType() == DotTokenizer.STRICT) {
+			tokenizer.next();
+		}
+		if (tokenizer.getType() != DotTokenizer.GRAPH && tokenizer.getType() != DotTokenizer.DIGRAPH) {
+			throw tokenizer.error("'graph' or 'digraph' expected");
+		}
+		tokenizer.next();
+		if (tokenizer.getType() == DotTokenizer.ID) {
+			tokenizer.next();
+		}
+		statementList(new Scope(), null);
+		expect(DotTokenizer.EOF, "End of input");
+		CompactDotGraph graph = builder.build();
+		tokenizer = null;
+		builder = null;
+		return graph;
+	}
+
+	/**
+	 * @param nodes Collects the nodes mentioned in the list (only needed
+	 *     for subgraphs), or null
+	 */
+	private void statementList(Scope scope, IntList nodes) throws IOException {
+		expect(DotTokenizer.BRACE_OPEN, "'{'");
+		tokenizer.next();
+		while (tokenizer.getType() != DotTokenizer.BRACE_CLOSE) {
+			statement(scope, nodes);
+			if (tokenizer.getType() == DotTokenizer.SEMICOLON) {
+				tokenizer.next();
+			}
+		}
+		tokenizer.next();
+	}
+
+	private void statement(Scope scope, IntList nodes) throws IOException {
+		switch (tokenizer.getType()) {
+		case DotTokenizer.GRAPH:
+		case DotTokenizer.NODE:
+		case DotTokenizer.EDGE:
+			attributeStatement(scope, nodes == null);
+			break;
+		case DotTokenizer.SUBGRAPH:
+		case DotTokenizer.BRACE_OPEN:
+			Endpoint subgraph = subgraph(scope);
+			addAll(nodes, subgraph.nodes);
+			if (tokenizer.getType() == DotTokenizer.EDGE_OP) {
+				edgeStatement(scope, subgraph, nodes);
+			}
+			break;
+		case DotTokenizer.ID:
+			int id = tokenizer.internText(pool);
+			tokenizer.next();
+			if (tokenizer.getType() == DotTokenizer.EQUAL) {
+				tokenizer.next();
+				expect(DotTokenizer.ID, "Attribute value");
+				if (nodes == null) {
+					builder.graphAttribute(id, tokenizer.internText(pool), tokenizer.isHtml());
+				}
+				tokenizer.next();
+			}
+			else {
+				Endpoint node = nodeId(id, scope);
+				addAll(nodes, node.nodes);
+				if (tokenizer.getType() == DotTokenizer.EDGE_OP) {
+					edgeStatement(scope, node, nodes);
+				}
+				else if (tokenizer.getType() == DotTokenizer.BRACKET_OPEN) {
+					Attributes attributes = attributeList();
+					for (int i = 0; i < attributes.size(); i++) {
+						builder.nodeAttribute(node.nodes.get(0),
+								attributes.keys.get(i), attributes.values.get(i), attributes.html.get(i) != 0);
+					}
+				}
+			}
+			break;
+		default:
+			throw tokenizer.error("Statement expected");
+		}
+	}
+
+	private void attributeStatement(Scope scope, boolean root) throws IOException {
+		int type = tokenizer.getType();
+		tokenizer.next();
+		Attributes attributes = attributeList();
+		if (type == DotTokenizer.NODE) {
+			scope.nodeDefaults.addAll(attributes);
+		}
+		else if (type == DotTokenizer.EDGE) {
+			scope.edgeDefaults.addAll(attributes);
+		}
+		else if (root) {
+			for (int i = 0; i < attributes.size(); i++) {
+				builder.graphAttribute(attributes.keys.get(i),
+						attributes.values.get(i), attributes.html.get(i) != 0);
+			}
+		}
+	}
+
+	private void edgeStatement(Scope scope, Endpoint first, IntList nodes) throws IOException {
+		List<Endpoint> endpoints = new ArrayList<>();
+		endpoints.add(first);
+		while (tokenizer.getType() == DotTokenizer.EDGE_OP) {
+			tokenizer.next();
+			Endpoint endpoint;
+			if (tokenizer.getType() == DotTokenizer.ID) {
+				int id = tokenizer.internText(pool);
+				tokenizer.next();
+				endpoint = nodeId(id, scope);
+			}
+			else if (tokenizer.getType() == DotTokenizer.SUBGRAPH ||
+					tokenizer.getType() == DotTokenizer.BRACE_OPEN) {
+				endpoint = subgraph(scope);
+			}
+			else {
+				throw tokenizer.error("Node or subgraph expected");
+			}
+			addAll(nodes, endpoint.nodes);
+			endpoints.add(endpoint);
+		}
+		Attributes attributes = tokenizer.getType() == DotTokenizer.BRACKET_OPEN
+				? attributeList() : new Attributes();
+		for (int i = 0; i < endpoints.size() - 1; i++) {
+			Endpoint from = endpoints.get(i);
+			Endpoint to = endpoints.get(i + 1);
+			for (int source = 0; source < from.nodes.size(); source++) {
+				for (int target = 0; target < to.nodes.size(); target++) {
+					int edge = builder.edge(from.nodes.get(source),
+							to.nodes.get(target), CompactDotGraph.TARGET_PORT);
+					builder.edgeSourcePort(edge, from.record, from.compass);
+					builder.edgeTargetPort(edge, to.record, to.compass);
+					for (Attributes attrs : Arrays.asList(scope.edgeDefaults, attributes)) {
+						for (int attr = 0; attr < attrs.size(); attr++) {
+							builder.edgeAttribute(edge, attrs.keys.get(attr), attrs.values.get(attr));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Node reference, with an optional port, creating the node (with the
+	 * current defaults) if it was not mentioned before
+	 */
+	private Endpoint nodeId(int nameId, Scope scope) throws IOException {
+		int nodeCount = builder.nodeCount();
+		int node = builder.node(nameId);
+		if (builder.nodeCount() > nodeCount) {
+			Attributes defaults = scope.nodeDefaults;
+			for (int i = 0; i < defaults.size(); i++) {
+				builder.nodeAttribute(node,
+						defaults.keys.get(i), defaults.values.get(i), defaults.html.get(i) != 0);
+			}
+		}
+		Endpoint endpoint = new Endpoint();
+		endpoint.nodes.add(node);
+		if (tokenizer.getType() == DotTokenizer.COLON) {
+			tokenizer.next();
+			expect(DotTokenizer.ID, "Port");
+			int port = tokenizer.internText(pool);
+			tokenizer.next();
+			if (tokenizer.getType() == DotTokenizer.COLON) {
+				tokenizer.next();
+				expect(DotTokenizer.ID, "Compass point");
+				if (!COMPASS_POINTS.contains(tokenizer.getText())) {
+					throw tokenizer.error("Invalid compass point '" + tokenizer.getText() + "'");
+				}
+				endpoint.record = port;
+				endpoint.compass = tokenizer.internText(pool);
+				tokenizer.next();
+			}
+			else if (COMPASS_POINTS.contains(pool.get(port))) {
+				endpoint.compass = port;
+			}
+			else {
+				endpoint.record = port;
+			}
+		}
+		return endpoint;
+	}
+
+	private Endpoint subgraph(Scope scope) throws IOException {
+		if (tokenizer.getType() == DotTokenizer.SUBGRAPH) {
+			tokenizer.next();
+			if (tokenizer.getType() == DotTokenizer.ID) {
+				tokenizer.next();
+			}
+		}
+		Endpoint endpoint = new Endpoint();
+		statementList(new Scope(scope), endpoint.nodes);
+		return endpoint;
+	}
+
+	private Attributes attributeList() throws IOException {
+		Attributes attributes = new Attributes();
+		do {
+			expect(DotTokenizer.BRACKET_OPEN, "'['");
+			tokenizer.next();
+			while (tokenizer.getType() == DotTokenizer.ID) {
+				int key = tokenizer.internText(pool);
+				tokenizer.next();
+				// a key without value is a true flag
+				int value = trueId;
+				boolean html = false;
+				if (tokenizer.getType() == DotTokenizer.EQUAL) {
+					tokenizer.next();
+					expect(DotTokenizer.ID, "Attribute value");
+					value = tokenizer.internText(pool);
+					html = tokenizer.isHtml();
+					tokenizer.next();
+				}
+				attributes.add(key, value, html);
+				if (tokenizer.getType() == DotTokenizer.SEMICOLON ||
+						tokenizer.getType() == DotTokenizer.COMMA) {
+					tokenizer.next();
+				}
+			}
+			expect(DotTokenizer.BRACKET_CLOSE, "']'");
+			tokenizer.next();
+		} while (tokenizer.getType() == DotTokenizer.BRACKET_OPEN);
+		return attributes;
+	}
+
+	private void expect(int type, String description) throws DotParseException {
+		if (tokenizer.getType() != type) {
+			throw tokenizer.error(description + " expected");
+		}
+	}
+
+	private static void addAll(IntList nodes, IntList added) {
+		if (nodes != null) {
+			for (int i = 0; i < added.size(); i++) {
+				nodes.add(added.get(i));
+			}
+		}
+	}
+
+	/**
+	 * One side of an edge: a node (and port) or the nodes of a subgraph
+	 */
+	private static class Endpoint {
+		IntList nodes = new IntList(1);
+		int record = StringPool.NONE;
+		int compass = StringPool.NONE;
+	}
+
+	/**
+	 * Attribute key and value ids, with the html flags of the values
+	 */
+	private static class Attributes {
+		IntList keys = new IntList();
+		IntList values = new IntList();
+		IntList html = new IntList();
+
+		void add(int key, int value, boolean isHtml) {
+			keys.add(key);
+			values.add(value);
+			html.add(isHtml ? 1 : 0);
+		}
+
+		void addAll(Attributes other) {
+			for (int i = 0; i < other.size(); i++) {
+				keys.add(other.keys.get(i));
+				values.add(other.values.get(i));
+				html.add(other.html.get(i));
+			}
+		}
+
+		int size() {
+			return keys.size();
+		}
+	}
+
+	/**
+	 * Node and edge defaults of the graph or of a subgraph
+	 */
+	private static class Scope {
+		Attributes nodeDefaults = new Attributes();
+		Attributes edgeDefaults = new Attributes();
+
+		Scope() {
+		}
+
+		Scope(Scope parent) {
+			nodeDefaults.addAll(parent.nodeDefaults);
+			edgeDefaults.addAll(parent.edgeDefaults);
+		}
+	}
+}
@@ -0,0 +1,350 @@
+package org.eclipse.epsilon.picto.diff.engines.dot.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+
+/**
+ * Splits DOT text read from a Reader into tokens, holding only a fixed size
+ * buffer and the text of the current token.
+ *
+ * Comments (line and block ones, and lines starting with #) are skipped.
+ * Quoted strings get escaped quotes and line continuations resolved, keeping
+ * any other escape sequence for graphviz, and can be concatenated with '+'
+ */
+public class DotTokenizer {
+
+	public static final int EOF = 0;
+	public static final int ID = 1;
+	public static final int STRICT = 2;
+	public static final int GRAPH = 3;
+	public static final int DIGRAPH = 4;
+	public static final int NODE = 5;
+	public static final int EDGE = 6;
+	public static final int SUBGRAPH = 7;
+	public static final int BRACE_OPEN = 8;
+	public static final int BRACE_CLOSE = 9;
+	public static final int BRACKET_OPEN = 10;
+	public static final int BRACKET_CLOSE = 11;
+	public static final int EQUAL = 12;
+	public static final int SEMICOLON = 13;
+	public static final int COMMA = 14;
+	public static final int COLON = 15;
+	public static final int EDGE_OP = 16;
+
+	private static final int END = -1;
+	private static final int BUFFER_SIZE = 8192;
+
+	protected Reader reader;
+	protected char[] buffer = new char[BUFFER_SIZE];
+	protected int position;
+	protected int limit;
+
+	protected int line = 1;
+	protected int column = 0;
+	protected int tokenLine;
+	protected int tokenColumn;
+
+	protected int type;
+	protected boolean html;
+	protected StringBuilder text = new StringBuilder();
+
+	public DotTokenizer(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Move to the next token
+	 *
+	 * @return The type of the token
+	 */
+	public int next() throws IOException {
+		skipBlanks();
+		tokenLine = line;
+		tokenColumn = column + 1;
+		html = false;
+		text.setLength(0);
+		int c = read();
+		switch (c) {
+		case END:
+			return type = EOF;
+		case '{':
+			return type = BRACE_OPEN;
+		case '}':
+			return type = BRACE_CLOSE;
+		case '[':
+			return type = BRACKET_OPEN;
+		case ']':
+			return type = BRACKET_CLOSE;
+		case '=':
+			return type = EQUAL;
+		case ';':
+			return type = SEMICOLON;
+		case ',':
+			return type = COMMA;
+		case ':':
+			return type = COLON;
+		case '"':
+			quoted();
+			return type = ID;
+		case '<':
+			html();
+			return type = ID;
+		case '-':
+			if (peek() == '>' || peek() == '-') {
+				read();
+				return type = EDGE_OP;
+			}
+			numeral(c);
+			return type = ID;
+		default:
+			if (c == '.' || isDigit(c)) {
+				numeral(c);
+				return type = ID;
+			}
+			if (isIdentifierStart(c)) {
+				identifier(c);
+				return type = keyword();
+			}
+			throw error("Unexpected character '" + (char) c + "'");
+		}
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Text of the current token (only meaningful for IDs and keywords)
+	 */
+	public String getText() {
+		return text.toString();
+	}
+
+	/**
+	 * Intern the text of the current token without creating a string
+	 * if it is already in the pool
+	 */
+	public int internText(StringPool pool) {
+		return pool.intern(text);
+	}
+
+	/**
+	 * Whether the current ID is an HTML string
+	 */
+	public boolean isHtml() {
+		return html;
+	}
+
+	public DotParseException error(String message) {
+		return new DotParseException(message, tokenLine, tokenColumn);
+	}
+
+	private int keyword() {
+		if (text.length() > 8) {
+			return ID;
+		}
+		switch (text.toString().toLowerCase(Locale.ENGLISH)) {
+		case "strict":
+			return STRICT;
+		case "graph":
+			return GRAPH;
+		case "digraph":
+			return DIGRAPH;
+		case "node":
+			return NODE;
+		case "edge":
+			return EDGE;
+		case "subgraph":
+			return SUBGRAPH;
+		default:
+			return ID;
+		}
+	}
+
+	private void identifier(int first) throws IOException {
+		text.append((char) first);
+		while (isIdentifierStart(peek()) || isDigit(peek())) {
+			text.append((char) read());
+		}
+	}
+
+	private void numeral(int first) throws IOException {
+		text.append((char) first);
+		while (peek() == '.' || isDigit(peek())) {
+			text.append((char) read());
+		}
+	}
+
+	private void quoted() throws IOException {
+		while (true) {
+			int c = read();
+			if (c == END) {
+				throw error("Unterminated string");
+			}
+			if (c == '"') {
+				// "a" + "b" concatenation
+				skipBlanks();
+				if (peek() != '+') {
+					return;
+				}
+				read();
+				skipBlanks();
+				if (read() != '"') {
+					throw error("String expected after '+'");
+				}
+			}
+			else if (c == '\\') {
+				escape();
+			}
+			else {
+				text.append((char) c);
+			}
+		}
+	}
+
+	private void escape() throws IOException {
+		int c = peek();
+		if (c == '"') {
+			read();
+			text.append('"');
+		}
+		else if (c == '\\') {
+			read();
+			text.append("\\\\");
+		}
+		else if (c == '\n' || c == '\r') {
+			// line continuation
+			read();
+			if (c == '\r' && peek() == '\n') {
+				read();
+			}
+		}
+		else {
+			text.append('\\');
+		}
+	}
+
+	private void html() throws IOException {
+		html = true;
+		int level = 1;
+		while (true) {
+			int c = read();
+			if (c == END) {
+				throw error("Unterminated HTML string");
+			}
+			if (c == '<') {
+				level++;
+			}
+			else if (c == '>' && --level == 0) {
+				return;
+			}
+			text.append((char) c);
+		}
+	}
+
+	private void skipBlanks() throws IOException {
+		while (true) {
+			int c = peek();
+			if (c == END) {
+				return;
+			}
+			if (c == '#' && column == 0) {
+				skipLine();
+			}
+			else if (c == '/') {
+				if (peek(1) == '/') {
+					skipLine();
+				}
+				else if (peek(1) == '*') {
+					skipBlockComment();
+				}
+				else {
+					return;
+				}
+			}
+			else if (Character.isWhitespace(c)) {
+				read();
+			}
+			else {
+				return;
+			}
+		}
+	}
+
+	private void skipLine() throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (c != '\n' && c != END);
+	}
+
+	private void skipBlockComment() throws IOException {
+		read();
+		read();
+		int previous = 0;
+		int c;
+		while ((c = read()) != END) {
+			if (previous == '*' && c == '/') {
+				return;
+			}
+			previous = c;
+		}
+		throw error("Unterminated comment");
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isIdentifierStart(int c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c >= 128;
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill(1)) {
+			return END;
+		}
+		char c = buffer[position++];
+		if (c == '\n') {
+			line++;
+			column = 0;
+		}
+		else {
+			column++;
+		}
+		return c;
+	}
+
+	private int peek() throws IOException {
+		return peek(0);
+	}
+
+	private int peek(int offset) throws IOException {
+		if (position + offset >= limit && !fill(offset + 1)) {
+			return END;
+		}
+		return buffer[position + offset];
+	}
+
+	/**
+	 * Make sure that at least the given number of characters are buffered
+	 *
+	 * @return False if the input ends before
+	 */
+	private boolean fill(int required) throws IOException {
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			limit -= position;
+			position = 0;
+		}
+		while (limit < required) {
+			int read = reader.read(buffer, limit, buffer.length - limit);
+			if (read < 0) {
+				return false;
+			}
+			limit += read;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,100 @@
+package org.eclipse.epsilon.picto.diff.engines.dot.model;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long keys to non-negative int values, used to look
+ * up graph elements by pairs of ids without boxing them
+ */
+public class LongIntMap {
+
+	public static final int MISSING = -1;
+
+	private static final float LOAD_FACTOR = 0.5f;
+
+	protected long[] keys;
+	protected int[] values;
+	protected int size;
+
+	public LongIntMap() {
+		this(16);
+	}
+
+	public LongIntMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(
+				Math.max((int) (expectedSize / LOAD_FACTOR), 8) - 1) << 1;
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, MISSING);
+	}
+
+	public static long key(int high, int low) {
+		return ((long) high << 32) | (low & 0xffffffffL);
+	}
+
+	public int get(long key) {
+		int mask = keys.length - 1;
+		for (int i = hash(key) & mask; values[i] != MISSING; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return values[i];
+			}
+		}
+		return MISSING;
+	}
+
+	public boolean containsKey(long key) {
+		return get(key) != MISSING;
+	}
+
+	/**
+	 * Map the key to the value only if it is not mapped yet
+	 *
+	 * @return The value previously mapped to the key, or MISSING
+	 */
+	public int putIfAbsent(long key, int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative value: " + value);
+		}
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		for (; values[i] != MISSING; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return values[i];
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size > keys.length * LOAD_FACTOR) {
+			resize();
+		}
+		return MISSING;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(values, MISSING);
+		size = 0;
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldValues.length * 2];
+		Arrays.fill(values, MISSING);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != MISSING) {
+				putIfAbsent(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,139 @@
+package org.eclipse.epsilon.picto.diff.engines.dot.model;
+
+import java.util.Arrays;
+
+/**
+ * Interns the strings of compact graphs (names, attribute keys and values)
+ * into dense int ids. Both compared graphs share the same pool, so their
+ * names and attributes can be compared by id.
+ *
+ * Lookups accept any CharSequence, so that parsers can intern the text of
+ * their current token without creating a string for already known values
+ */
+public class StringPool {
+
+	public static final int NONE = -1;
+
+	private static final float LOAD_FACTOR = 0.5f;
+
+	protected String[] values = new String[16];
+	protected int[] hashes = new int[16];
+	protected int size;
+	// open-addressing table of ids (+1, 0 marks empty slots)
+	protected int[] table = new int[32];
+
+	public int intern(CharSequence value) {
+		return intern(value, hash(value));
+	}
+
+	/**
+	 * Intern all the values of another pool, reusing their hashes
+	 *
+	 * @return The ids of this pool, indexed by the ids of the other one
+	 */
+	public int[] internAll(StringPool other) {
+		ensureCapacity(size + other.size);
+		int[] ids = new int[other.size];
+		for (int id = 0; id < other.size; id++) {
+			ids[id] = intern(other.values[id], other.hashes[id]);
+		}
+		return ids;
+	}
+
+	private int intern(CharSequence value, int hash) {
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		for (; table[slot] != 0; slot = (slot + 1) & mask) {
+			int id = table[slot] - 1;
+			if (hashes[id] == hash && contentEquals(values[id], value)) {
+				return id;
+			}
+		}
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+			hashes = Arrays.copyOf(hashes, size * 2);
+		}
+		int id = size++;
+		values[id] = value.toString();
+		hashes[id] = hash;
+		table[slot] = id + 1;
+		if (size > table.length * LOAD_FACTOR) {
+			rehash();
+		}
+		return id;
+	}
+
+	/**
+	 * @return The id of an already interned value, or NONE
+	 */
+	public int find(CharSequence value) {
+		int hash = hash(value);
+		int mask = table.length - 1;
+		for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			int id = table[slot] - 1;
+			if (hashes[id] == hash && contentEquals(values[id], value)) {
+				return id;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * @return The interned value, or null for NONE
+	 */
+	public String get(int id) {
+		return id != NONE ? values[id] : null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, capacity);
+			hashes = Arrays.copyOf(hashes, capacity);
+		}
+		int tableLength = table.length;
+		while (capacity > tableLength * LOAD_FACTOR) {
+			tableLength *= 2;
+		}
+		if (tableLength > table.length) {
+			table = new int[tableLength / 2];
+			rehash();
+		}
+	}
+
+	private void rehash() {
+		table = new int[table.length * 2];
+		int mask = table.length - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = hashes[id] & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id + 1;
+		}
+	}
+
+	private static int hash(CharSequence value) {
+		int hash = 0;
+		for (int i = 0; i < value.length(); i++) {
+			hash = 31 * hash + value.charAt(i);
+		}
+		// spread the bits, as slots are taken from the lowest ones
+		return hash ^ (hash >>> 16) ^ (hash >>> 7);
+	}
+
+	private static boolean contentEquals(String value, CharSequence other) {
+		if (value.length() != other.length()) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) != other.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
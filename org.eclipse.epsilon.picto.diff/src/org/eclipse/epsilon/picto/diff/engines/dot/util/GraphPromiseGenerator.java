@@ -6,8 +6,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 
+import org.eclipse.epsilon.picto.diff.engines.dot.DotRenderer;
+
 import guru.nidi.graphviz.engine.Format;
-import guru.nidi.graphviz.engine.Graphviz;
 import guru.nidi.graphviz.model.Link;
 import guru.nidi.graphviz.model.MutableGraph;
 import guru.nidi.graphviz.model.MutableNode;
@@ -52,7 +53,7 @@ public class GraphPromiseGenerator {
 	}
 
 	protected String getGraph(Format format) {
-		return Graphviz.fromGraph(graph).render(format).toString();
+		return DotRenderer.getDefault().render(graph.toString(), 1, format);
 	}
 
 	public ArrayList<SubGraphPromise> getNodePromises() {
@@ -0,0 +1,67 @@
+package org.eclipse.epsilon.picto.diff.engines.dot.util;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Set comparing its elements by identity, iterated in insertion order.
+ *
+ * Graph elements (nodes, links) hash deeply over their attributes and links,
+ * which is expensive and breaks hash-based collections when the elements
+ * are painted after being added to them
+ */
+public class LinkedIdentitySet<E> extends AbstractSet<E> {
+
+	protected Map<IdentityKey, E> elements = new LinkedHashMap<>();
+
+	@Override
+	public boolean add(E element) {
+		return elements.putIfAbsent(new IdentityKey(element), element) == null;
+	}
+
+	@Override
+	public boolean contains(Object element) {
+		return elements.containsKey(new IdentityKey(element));
+	}
+
+	@Override
+	public boolean remove(Object element) {
+		return elements.remove(new IdentityKey(element)) != null;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return elements.values().iterator();
+	}
+
+	@Override
+	public int size() {
+		return elements.size();
+	}
+
+	@Override
+	public void clear() {
+		elements.clear();
+	}
+
+	private static class IdentityKey {
+
+		private final Object element;
+
+		public IdentityKey(Object element) {
+			this.element = element;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof IdentityKey && ((IdentityKey) other).element == element;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(element);
+		}
+	}
+}
@@ -11,6 +11,11 @@ public class DummyDiffEngine implements DiffEngine {
 		return true;
 	}
 
+	@Override
+	public boolean isStateless() {
+		return true;
+	}
+
 	@Override
 	public void diff(ViewTree diffView, ViewTree left, ViewTree right) throws Exception {
 		diffView.setPromise(new StaticContentPromise(String.format("%s: Content differs", diffView.getName())));
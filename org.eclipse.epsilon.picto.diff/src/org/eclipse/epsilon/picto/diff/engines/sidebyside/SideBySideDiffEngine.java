@@ -26,6 +26,11 @@ public class SideBySideDiffEngine implements DiffEngine {
 		return true;
 	}
 
+	@Override
+	public boolean isStateless() {
+		return true;
+	}
+
 	@Override
 	public void diff(ViewTree diffView, ViewTree oldView, ViewTree newView) throws Exception {
 
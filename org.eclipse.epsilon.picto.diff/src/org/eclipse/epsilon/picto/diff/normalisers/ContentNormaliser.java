@@ -0,0 +1,18 @@
+package org.eclipse.epsilon.picto.diff.normalisers;
+
+/**
+ * Removes parts of the content of a view that might cause false positives
+ * when looking for changes between two versions (e.g. links with editors,
+ * generation timestamps)
+ */
+public interface ContentNormaliser {
+
+	public boolean supports(String format);
+
+	/**
+	 * @return A regular expression matching the spans of the content to
+	 *   remove. It is compiled together with the rest of normalisers of a
+	 *   chain, so it should not contain capturing group references
+	 */
+	public String getIgnoredRegex();
+}
@@ -0,0 +1,96 @@
+package org.eclipse.epsilon.picto.diff.normalisers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Set of content normalisers applied in a single pass. The expressions of
+ * the normalisers supporting a format are combined into one pattern, which
+ * is compiled the first time that format is normalised and then reused
+ */
+public class NormaliserChain {
+
+	/** Links with editors and viewTree paths, that would not work in the merged tree */
+	public static final String SHOW_VIEW_REGEX = "javascript:top.showView\\([^\"]*";
+	public static final String SHOW_ELEMENT_REGEX = "javascript:top\\.showElement\\([^\"]*";
+
+	/** Graphviz version stamp included in the generated svg */
+	public static final String GRAPHVIZ_COMMENT_REGEX = "<!-- Generated by graphviz[^>]*-->";
+
+	/** Carriage returns of windows line endings */
+	public static final String CARRIAGE_RETURN_REGEX = "\r(?=\n)";
+
+	protected List<ContentNormaliser> normalisers = new ArrayList<>();
+	protected Map<String, Optional<Pattern>> patterns = new ConcurrentHashMap<>();
+
+	public static NormaliserChain createDefault() {
+		NormaliserChain chain = new NormaliserChain();
+		chain.addNormaliser(new PatternNormaliser(SHOW_VIEW_REGEX));
+		chain.addNormaliser(new PatternNormaliser(SHOW_ELEMENT_REGEX));
+		chain.addNormaliser(new PatternNormaliser(GRAPHVIZ_COMMENT_REGEX, "svg", "html"));
+		chain.addNormaliser(new PatternNormaliser(CARRIAGE_RETURN_REGEX, "csv", "graphviz-dot"));
+		return chain;
+	}
+
+	public void addNormaliser(ContentNormaliser normaliser) {
+		normalisers.add(normaliser);
+		patterns.clear();
+	}
+
+	public List<ContentNormaliser> getNormalisers() {
+		return normalisers;
+	}
+
+	/**
+	 * @return The combined pattern of all the normalisers supporting the
+	 *   format, or null if none does
+	 */
+	public Pattern getIgnoredContent(String format) {
+		return patterns.computeIfAbsent(String.valueOf(format), this::compile).orElse(null);
+	}
+
+	protected Optional<Pattern> compile(String format) {
+		StringBuilder regex = new StringBuilder();
+		for (ContentNormaliser normaliser : normalisers) {
+			if (normaliser.supports(format)) {
+				if (regex.length() > 0) {
+					regex.append('|');
+				}
+				regex.append("(?:").append(normaliser.getIgnoredRegex()).append(')');
+			}
+		}
+		if (regex.length() == 0) {
+			return Optional.empty();
+		}
+		return Optional.of(Pattern.compile(regex.toString()));
+	}
+
+	/**
+	 * Remove all ignored spans of the text in a single pass. If nothing is
+	 * matched, the same text instance is returned
+	 */
+	public String normalise(String text, String format) {
+		Pattern ignored = getIgnoredContent(format);
+		if (ignored == null) {
+			return text;
+		}
+		Matcher matcher = ignored.matcher(text);
+		if (!matcher.find()) {
+			return text;
+		}
+		StringBuilder result = new StringBuilder(text.length());
+		int start = 0;
+		do {
+			result.append(text, start, matcher.start());
+			start = matcher.end();
+		}
+		while (matcher.find());
+		result.append(text, start, text.length());
+		return result.toString();
+	}
+}
@@ -0,0 +1,35 @@
+package org.eclipse.epsilon.picto.diff.normalisers;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Normaliser removing the spans matched by a regular expression in
+ * contents of the given formats (or of any format if none is provided)
+ */
+public class PatternNormaliser implements ContentNormaliser {
+
+	protected String ignoredRegex;
+	protected Set<String> formats;
+
+	public PatternNormaliser(String ignoredRegex, String... formats) {
+		this(ignoredRegex, Arrays.asList(formats));
+	}
+
+	public PatternNormaliser(String ignoredRegex, Collection<String> formats) {
+		this.ignoredRegex = ignoredRegex;
+		this.formats = new HashSet<>(formats);
+	}
+
+	@Override
+	public boolean supports(String format) {
+		return formats.isEmpty() || formats.contains(format);
+	}
+
+	@Override
+	public String getIgnoredRegex() {
+		return ignoredRegex;
+	}
+}
@@ -3,14 +3,18 @@ package org.eclipse.epsilon.picto.diff.source;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.epsilon.picto.ViewTree;
+import org.eclipse.epsilon.picto.diff.DiffResultCache;
 import org.eclipse.epsilon.picto.diff.FileWrapperEditorPart;
+import org.eclipse.epsilon.picto.diff.PictoDiffPlugin;
 import org.eclipse.epsilon.picto.diff.ViewTreeMerger;
 import org.eclipse.epsilon.picto.dom.Parameter;
 import org.eclipse.epsilon.picto.dom.Picto;
@@ -25,6 +29,12 @@ public class PictoDiffSource extends StandalonePictoSource {
 
 	public static final String OLD_VERSION_PARAMETER = "previous";
 	public static final String NEW_VERSION_PARAMETER = "current";
+	public static final String DIFF_ENGINE_PARAMETER = "diffEngine";
+	public static final String PARALLELISM_PARAMETER = "parallelism";
+	public static final String LAZY_PARAMETER = "lazy";
+	public static final String ITERATIVE_PARAMETER = "iterative";
+	public static final String CACHE_PARAMETER = "cache";
+	public static final String CACHE_SIZE_PARAMETER = "cacheSize";
 
 	@Override
 	public String getFormat() {
@@ -91,10 +101,44 @@ public class PictoDiffSource extends StandalonePictoSource {
 		Parameter pNew = getParameter(pictoDiff, "current");
 
 		String diffEngine = null;
-		Parameter diffEnginePar = getParameter(pictoDiff, "diffEngine");
+		Parameter diffEnginePar = getParameter(pictoDiff, DIFF_ENGINE_PARAMETER);
 		if (diffEnginePar != null) {
 			diffEngine = (String) diffEnginePar.getValue();
 		}
+		ViewTreeMerger merger = new ViewTreeMerger(diffEngine);
+		Parameter parallelismPar = getParameter(pictoDiff, PARALLELISM_PARAMETER);
+		if (parallelismPar != null) {
+			merger.setParallelism((int) getLongValue(parallelismPar, 1, Integer.MAX_VALUE));
+		}
+		Parameter lazyPar = getParameter(pictoDiff, LAZY_PARAMETER);
+		if (lazyPar != null) {
+			merger.setLazy(Boolean.parseBoolean(lazyPar.getValue().toString()));
+		}
+		Parameter iterativePar = getParameter(pictoDiff, ITERATIVE_PARAMETER);
+		if (iterativePar != null) {
+			merger.setIterative(Boolean.parseBoolean(iterativePar.getValue().toString()));
+		}
+		Parameter cachePar = getParameter(pictoDiff, CACHE_PARAMETER);
+		// opt-in, results are persisted across sessions
+		if (cachePar != null && Boolean.parseBoolean(cachePar.getValue().toString())) {
+			// cache size in megabytes
+			long cacheSize = DiffResultCache.DEFAULT_MAX_SIZE;
+			Parameter cacheSizePar = getParameter(pictoDiff, CACHE_SIZE_PARAMETER);
+			if (cacheSizePar != null) {
+				cacheSize = getLongValue(cacheSizePar, 0, Long.MAX_VALUE / (1024 * 1024)) * 1024 * 1024;
+			}
+			merger.setResultCache(new DiffResultCache(
+					PictoDiffPlugin.getDefault().getDiffCacheLocation(), cacheSize));
+		}
+
+		// engines pick their own settings (e.g. the dot layout policy or renderer)
+		Map<String, String> engineParameters = new HashMap<>();
+		for (Parameter parameter : pictoDiff.getParameters()) {
+			if (parameter.getName() != null && parameter.getValue() != null) {
+				engineParameters.put(parameter.getName(), parameter.getValue().toString());
+			}
+		}
+		merger.setEngineParameters(engineParameters);
 
 		IProject project = null;
 		if (editor.getEditorInput() instanceof IFileEditorInput) {
@@ -114,7 +158,7 @@ public class PictoDiffSource extends StandalonePictoSource {
 
 		ViewTree oldTree = oldVersionSource.getViewTree(oldVersionWrapper);
 		ViewTree newTree = newVersionSource.getViewTree(newVersionWrapper);
-		ViewTree mergedDiffViewTree = ViewTreeMerger.diffMerge(oldTree, newTree, diffEngine);
+		ViewTree mergedDiffViewTree = merger.merge(oldTree, newTree);
 
 		ViewTree viewTree = new ViewTree();
 		// set here base uri to find pictodiff icons
@@ -136,6 +180,30 @@ public class PictoDiffSource extends StandalonePictoSource {
 		}
 	}
 
+	/**
+	 * Numeric value of a parameter
+	 *
+	 * @throws IllegalArgumentException If the value is not a number between
+	 *     min and max
+	 */
+	protected long getLongValue(Parameter parameter, long min, long max) {
+		String value = parameter.getValue().toString().trim();
+		long number;
+		try {
+			number = Long.parseLong(value);
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException(String.format(
+					"Parameter %s must be a number (was %s)", parameter.getName(), value));
+		}
+		if (number < min || number > max) {
+			throw new IllegalArgumentException(String.format(
+					"Parameter %s must be between %d and %d (was %d)",
+					parameter.getName(), min, max, number));
+		}
+		return number;
+	}
+
 	protected PictoSource getSource(IEditorPart editorPart) {
 		List<PictoSource> sources =
 				new PictoSourceExtensionPointManager().getExtensions();